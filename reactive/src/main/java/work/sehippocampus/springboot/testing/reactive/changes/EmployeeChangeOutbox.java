@@ -0,0 +1,73 @@
+package work.sehippocampus.springboot.testing.reactive.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Records employee changes in the transactional outbox (employee_changes) of the servlet application, which serves
+ * them from GET /api/employees/changes (delta sync and server-sent events).
+ * <p>
+ * A change has to be recorded in the transaction that makes it, so it is in the outbox exactly when it is committed.
+ * The servlet application picks the changes of this one up with its poll for the changes of other nodes.
+ */
+@Component
+public class EmployeeChangeOutbox {
+
+    private static final String INSERT = "insert into employee_changes (employee_id, type, payload) "
+            + "values (:employeeId, :type, :payload)";
+
+    private final DatabaseClient databaseClient;
+    private final ObjectWriter eventWriter;
+
+    public EmployeeChangeOutbox(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.eventWriter = objectMapper.writerFor(EmployeeChangeEvent.class);
+    }
+
+    // the employee as it was inserted or updated, with the version the change gave it
+    public Mono<Void> recordSaved(EmployeeChangeEvent.Type type, Employee employee) {
+        return record(EmployeeChangeEvent.builder()
+                .type(type)
+                .employeeId(employee.getId())
+                .employee(employee)
+                .build());
+    }
+
+    public Mono<Void> recordDeleted(Collection<Long> ids) {
+        return Flux.fromIterable(ids)
+                .concatMap(id -> record(EmployeeChangeEvent.builder()
+                        .type(EmployeeChangeEvent.Type.DELETED)
+                        .employeeId(id)
+                        .build()))
+                .then();
+    }
+
+    private Mono<Void> record(EmployeeChangeEvent event) {
+        return Mono.fromCallable(() -> toJson(event))
+                .flatMap(payload -> databaseClient.sql(INSERT)
+                        .bind("employeeId", event.getEmployeeId())
+                        .bind("type", event.getType().name())
+                        .bind("payload", payload)
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+    private String toJson(EmployeeChangeEvent event) {
+        try {
+            return eventWriter.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
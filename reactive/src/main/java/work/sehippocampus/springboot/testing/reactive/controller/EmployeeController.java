@@ -0,0 +1,133 @@
+package work.sehippocampus.springboot.testing.reactive.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeDeleteResult;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+import work.sehippocampus.springboot.testing.reactive.service.EmployeeService;
+
+import java.util.List;
+
+// same contract as the servlet EmployeeController
+@RestController
+@RequestMapping("/api/employees")
+public class EmployeeController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private EmployeeService employeeService;
+
+    public EmployeeController(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Employee> createEmployee(@RequestBody Employee employee) {
+        return employeeService.saveEmployee(employee);
+    }
+
+    @PostMapping("/batch")
+    public Mono<EmployeeBatchResult> createEmployees(@RequestBody List<Employee> employees) {
+        if (employees.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_BATCH_SIZE + " employees per batch");
+        }
+        return employeeService.saveEmployees(employees);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Employee>>> getAllEmployees(@RequestParam(defaultValue = "0") long after,
+                                                                @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return employeeService.getEmployees(after, pageSize)
+                .collectList()
+                .map(employees -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (employees.size() == pageSize) {
+                        response.header(NEXT_CURSOR_HEADER, String.valueOf(employees.get(pageSize - 1).getId()));
+                    }
+                    return response.body(employees);
+                });
+    }
+
+    // each element is written and flushed as the client demands it (backpressure down to the driver)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> streamAllEmployees() {
+        return employeeService.streamAllEmployees();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") long employeeId) {
+        return employeeService.getEmployeeById(employeeId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") long employeeId,
+                                                         @RequestBody Employee employee) {
+        return employeeService.getEmployeeById(employeeId)
+                .flatMap(savedEmployee -> {
+                    Employee changedEmployee = Employee.builder()
+                            .id(savedEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            // the client's version wins so that a stale edit is rejected instead of overwriting
+                            .version(employee.getVersion() != null ? employee.getVersion() : savedEmployee.getVersion())
+                            .build();
+
+                    return employeeService.updateEmployee(changedEmployee);
+                })
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("{id}")
+    public Mono<ResponseEntity<Void>> patchEmployee(@PathVariable("id") long employeeId,
+                                                    @RequestBody Employee employee) {
+        if (employee.getFirstName() == null && employee.getLastName() == null && employee.getEmail() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "no field to patch");
+        }
+        return employeeService.patchEmployee(employeeId, employee)
+                .map(patched -> patched
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<Void>> deleteEmployee(@PathVariable("id") long employeeId) {
+        return employeeService.deleteEmployee(employeeId)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @DeleteMapping(params = "ids")
+    public Mono<EmployeeDeleteResult> deleteEmployees(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_BATCH_SIZE + " ids per delete");
+        }
+        return employeeService.deleteEmployees(ids)
+                .map(deleted -> EmployeeDeleteResult.builder()
+                        .requested(ids.size())
+                        .deleted(deleted)
+                        .build());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new ResponseEntity<String>("Employee was modified by another request", HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,23 @@
+package work.sehippocampus.springboot.testing.reactive.dto;
+
+import lombok.*;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+
+// data of an event of the servlet application's GET /api/employees/changes, the same JSON as it records
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+
+    private long employeeId;
+
+    // the employee after the change, null when it was deleted
+    private Employee employee;
+}
@@ -0,0 +1,36 @@
+package work.sehippocampus.springboot.testing.reactive.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Table("employees")
+public class Employee {
+    // the unique index on email (V2 of the servlet application's migrations)
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+    // varchar(255) of first_name, last_name and email
+    public static final int MAX_FIELD_LENGTH = 255;
+
+    // assigned by EmployeeIdAllocator before the insert
+    @Id
+    private long id;
+
+    @Column("first_name")
+    private String firstName;
+
+    @Column("last_name")
+    private String lastName;
+
+    private String email;
+
+    // optimistic lock, null until the first insert (spring data treats null as new)
+    @Version
+    private Long version;
+}
@@ -0,0 +1,62 @@
+package work.sehippocampus.springboot.testing.reactive.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out employee ids from the employees_seq table the same way hibernate's pooled optimizer does in the
+ * servlet application: reading next_val = hi reserves hi - 49 .. hi and moves next_val to hi + 50.
+ * Both applications can therefore insert into the same table without colliding.
+ */
+@Component
+public class EmployeeIdAllocator {
+
+    // must match @SequenceGenerator(allocationSize) of the servlet application
+    static final int ALLOCATION_SIZE = 50;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    private long next = 1;
+    private long max = 0;
+
+    public EmployeeIdAllocator(DatabaseClient databaseClient, TransactionalOperator transactionalOperator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (next <= max) {
+                    return Mono.just(next++);
+                }
+            }
+            return reserveBlock()
+                    .flatMap(hi -> {
+                        synchronized (this) {
+                            // a concurrent caller may have installed a block already, this one is then skipped
+                            if (next > max) {
+                                next = hi - ALLOCATION_SIZE + 1;
+                                max = hi;
+                            }
+                        }
+                        return nextId();
+                    });
+        });
+    }
+
+    private Mono<Long> reserveBlock() {
+        Mono<Long> reserve = databaseClient.sql("select next_val from employees_seq for update")
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .flatMap(hi -> databaseClient.sql("update employees_seq set next_val = :next")
+                        .bind("next", hi + ALLOCATION_SIZE)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(hi));
+        return transactionalOperator.transactional(reserve);
+    }
+}
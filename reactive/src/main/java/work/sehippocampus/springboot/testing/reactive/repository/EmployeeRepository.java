@@ -0,0 +1,36 @@
+package work.sehippocampus.springboot.testing.reactive.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+
+import java.util.Collection;
+
+public interface EmployeeRepository extends ReactiveCrudRepository<Employee, Long>, EmployeeRepositoryCustom {
+
+    Mono<Employee> findByEmail(String email);
+
+    // duplicate check for a whole batch in one query
+    @Query("select email from employees where email in (:emails)")
+    Flux<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // keyset pagination (id > after order by id limit n)
+    @Query("select * from employees where id > :after order by id limit :limit")
+    Flux<Employee> findPage(@Param("after") long after, @Param("limit") int limit);
+
+    // rows are pulled from the driver as the subscriber requests them
+    @Query("select * from employees order by id")
+    Flux<Employee> streamAll();
+
+    @Modifying
+    @Query("delete from employees where id = :id")
+    Mono<Integer> deleteDirectlyById(@Param("id") long id);
+
+    @Modifying
+    @Query("delete from employees where id in (:ids)")
+    Mono<Integer> deleteDirectlyByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,10 @@
+package work.sehippocampus.springboot.testing.reactive.repository;
+
+import reactor.core.publisher.Mono;
+
+public interface EmployeeRepositoryCustom {
+
+    // sets only the non null fields in one UPDATE, returns the affected row count (0 if missing or stale).
+    // with no field set nothing is written, the count is of the rows that would have matched
+    Mono<Integer> updateNonNullFields(long id, String firstName, String lastName, String email, Long expectedVersion);
+}
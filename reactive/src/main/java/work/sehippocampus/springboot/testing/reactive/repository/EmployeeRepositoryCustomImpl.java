@@ -0,0 +1,55 @@
+package work.sehippocampus.springboot.testing.reactive.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private final DatabaseClient databaseClient;
+
+    public EmployeeRepositoryCustomImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Integer> updateNonNullFields(long id, String firstName, String lastName, String email, Long expectedVersion) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (firstName != null) {
+            values.put("first_name", firstName);
+        }
+        if (lastName != null) {
+            values.put("last_name", lastName);
+        }
+        if (email != null) {
+            values.put("email", email);
+        }
+
+        StringBuilder sql;
+        if (values.isEmpty()) {
+            // nothing to set: no write and no version bump, only whether the row would have matched
+            sql = new StringBuilder("select count(*) from employees where id = :id");
+        } else {
+            sql = new StringBuilder("update employees set ");
+            values.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+            sql.append("version = version + 1 where id = :id");
+        }
+        if (expectedVersion != null) {
+            sql.append(" and version = :version");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("id", id);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        if (values.isEmpty()) {
+            return spec.map(row -> row.get(0, Long.class).intValue()).one();
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
@@ -0,0 +1,29 @@
+package work.sehippocampus.springboot.testing.reactive.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EmployeeService {
+    Mono<Employee> saveEmployee(Employee employee);
+
+    Mono<EmployeeBatchResult> saveEmployees(List<Employee> employees);
+
+    Flux<Employee> getEmployees(long after, int limit);
+
+    Flux<Employee> streamAllEmployees();
+
+    Mono<Employee> getEmployeeById(long id);
+
+    Mono<Employee> updateEmployee(Employee updatedEmployee);
+
+    Mono<Boolean> patchEmployee(long id, Employee changes);
+
+    Mono<Boolean> deleteEmployee(long id);
+
+    Mono<Integer> deleteEmployees(Collection<Long> ids);
+}
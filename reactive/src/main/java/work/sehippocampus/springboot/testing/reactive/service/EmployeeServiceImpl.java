@@ -0,0 +1,263 @@
+package work.sehippocampus.springboot.testing.reactive.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import work.sehippocampus.springboot.testing.reactive.changes.EmployeeChangeOutbox;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.reactive.exception.ResourceNotFoundException;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+import work.sehippocampus.springboot.testing.reactive.repository.EmployeeIdAllocator;
+import work.sehippocampus.springboot.testing.reactive.repository.EmployeeRepository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class EmployeeServiceImpl implements EmployeeService {
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeIdAllocator employeeIdAllocator;
+    private final EmployeeChangeOutbox employeeChangeOutbox;
+    private final TransactionalOperator transactionalOperator;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository,
+                               EmployeeIdAllocator employeeIdAllocator,
+                               EmployeeChangeOutbox employeeChangeOutbox,
+                               TransactionalOperator transactionalOperator) {
+        this.employeeRepository = employeeRepository;
+        this.employeeIdAllocator = employeeIdAllocator;
+        this.employeeChangeOutbox = employeeChangeOutbox;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    @Override
+    public Mono<Employee> saveEmployee(Employee employee) {
+        // the unique index on email is the duplicate check, so a create is a single insert (and its outbox row).
+        // the id is reserved outside the transaction, a rolled back insert must not take the reservation along
+        return employeeIdAllocator.nextId()
+                .flatMap(id -> transactionalOperator.transactional(insert(employee, id)))
+                .onErrorMap(DataIntegrityViolationException.class, e -> translateDuplicateEmail(e, employee.getEmail()));
+    }
+
+    @Override
+    public Mono<EmployeeBatchResult> saveEmployees(List<Employee> employees) {
+        Set<String> emails = employees.stream()
+                .map(Employee::getEmail)
+                .filter(StringUtils::hasText)
+                .map(EmployeeServiceImpl::normalizeEmail)
+                .collect(Collectors.toSet());
+        // the unique index compares emails without case (utf8mb4_unicode_ci), and so do the lookup and the set
+        Mono<Set<String>> existingEmails = emails.isEmpty()
+                ? Mono.just(new HashSet<>())
+                : employeeRepository.findExistingEmails(emails)
+                        .map(EmployeeServiceImpl::normalizeEmail)
+                        .collect(Collectors.toCollection(HashSet::new));
+
+        return existingEmails.flatMap(usedEmails -> {
+            EmployeeBatchItem[] items = new EmployeeBatchItem[employees.size()];
+            List<Integer> accepted = new ArrayList<>();
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                if (!StringUtils.hasText(employee.getFirstName())
+                        || !StringUtils.hasText(employee.getLastName())
+                        || !StringUtils.hasText(employee.getEmail())) {
+                    items[i] = failedItem(i, EmployeeBatchItem.Status.INVALID, "firstName, lastName and email are required");
+                } else if (employee.getFirstName().length() > Employee.MAX_FIELD_LENGTH
+                        || employee.getLastName().length() > Employee.MAX_FIELD_LENGTH
+                        || employee.getEmail().length() > Employee.MAX_FIELD_LENGTH) {
+                    // one value the column cannot hold would fail the insert of the whole batch
+                    items[i] = failedItem(i, EmployeeBatchItem.Status.INVALID,
+                            "firstName, lastName and email are at most " + Employee.MAX_FIELD_LENGTH + " characters");
+                } else if (!usedEmails.add(normalizeEmail(employee.getEmail()))) {
+                    items[i] = duplicateItem(i, employee.getEmail());
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            // the ids are reserved before the transaction, like the one of saveEmployee: the lock on employees_seq is
+            // not held for the whole batch, and a rolled back batch does not take the reservations along
+            return Flux.fromIterable(accepted)
+                    .concatMap(i -> employeeIdAllocator.nextId())
+                    .collectList()
+                    .flatMap(ids -> transactionalOperator.transactional(Flux.range(0, accepted.size())
+                                    .concatMap(n -> insert(employees.get(accepted.get(n)), ids.get(n))
+                                            .doOnNext(saved -> items[accepted.get(n)] = createdItem(accepted.get(n), saved)))
+                                    .then())
+                            .onErrorResume(DataIntegrityViolationException.class, e -> {
+                                if (!isDuplicateEmail(e)) {
+                                    return Mono.error(e);
+                                }
+                                // an email the lookup did not see: created concurrently in between, or equal only
+                                // under the collation
+                                return saveEachAlone(employees, accepted, ids, items);
+                            }))
+                    .then(Mono.fromSupplier(() -> {
+                        int created = (int) Arrays.stream(items)
+                                .filter(item -> item.getStatus() == EmployeeBatchItem.Status.CREATED)
+                                .count();
+                        return EmployeeBatchResult.builder()
+                                .created(created)
+                                .failed(employees.size() - created)
+                                .items(Arrays.asList(items))
+                                .build();
+                    }));
+        });
+    }
+
+    // one transaction per row, so that only the rows whose email is taken fail (as DUPLICATE). the ids reserved for
+    // the rolled back batch are still unused
+    private Mono<Void> saveEachAlone(List<Employee> employees, List<Integer> accepted, List<Long> ids,
+                                     EmployeeBatchItem[] items) {
+        return Flux.range(0, accepted.size())
+                .concatMap(n -> {
+                    int index = accepted.get(n);
+                    Employee employee = employees.get(index);
+                    return transactionalOperator.transactional(insert(employee, ids.get(n)))
+                            .doOnNext(saved -> items[index] = createdItem(index, saved))
+                            .onErrorResume(DataIntegrityViolationException.class, e -> {
+                                if (!isDuplicateEmail(e)) {
+                                    return Mono.error(e);
+                                }
+                                items[index] = duplicateItem(index, employee.getEmail());
+                                return Mono.empty();
+                            });
+                })
+                .then();
+    }
+
+    private Mono<Employee> insert(Employee employee, long id) {
+        return employeeRepository.save(employee.toBuilder()
+                        .id(id)
+                        .version(null)
+                        .build())
+                .flatMap(saved -> employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.CREATED, saved)
+                        .thenReturn(saved));
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static RuntimeException translateDuplicateEmail(DataIntegrityViolationException e, String email) {
+        if (isDuplicateEmail(e)) {
+            return new ResourceNotFoundException("Employee already exist with given email:" + email, e);
+        }
+        return e;
+    }
+
+    // the driver's message names the violated index, for MySQL and H2 alike
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(Employee.EMAIL_UNIQUE_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static EmployeeBatchItem createdItem(int index, Employee saved) {
+        return EmployeeBatchItem.builder()
+                .index(index)
+                .status(EmployeeBatchItem.Status.CREATED)
+                .id(saved.getId())
+                .build();
+    }
+
+    private static EmployeeBatchItem duplicateItem(int index, String email) {
+        return failedItem(index, EmployeeBatchItem.Status.DUPLICATE, "Employee already exist with given email:" + email);
+    }
+
+    private static EmployeeBatchItem failedItem(int index, EmployeeBatchItem.Status status, String message) {
+        return EmployeeBatchItem.builder()
+                .index(index)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    @Override
+    public Flux<Employee> getEmployees(long after, int limit) {
+        return employeeRepository.findPage(after, limit);
+    }
+
+    @Override
+    public Flux<Employee> streamAllEmployees() {
+        return employeeRepository.streamAll();
+    }
+
+    @Override
+    public Mono<Employee> getEmployeeById(long id) {
+        return employeeRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Employee> updateEmployee(Employee updatedEmployee) {
+        // versioned save: UPDATE ... WHERE id = ? AND version = ?, OptimisticLockingFailureException on a stale version
+        Mono<Employee> updated = employeeRepository.save(updatedEmployee)
+                .flatMap(saved -> employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.UPDATED, saved)
+                        .thenReturn(saved));
+        return transactionalOperator.transactional(updated);
+    }
+
+    @Override
+    public Mono<Boolean> patchEmployee(long id, Employee changes) {
+        Mono<Boolean> patched = employeeRepository.updateNonNullFields(id,
+                        changes.getFirstName(), changes.getLastName(), changes.getEmail(), changes.getVersion())
+                .onErrorMap(DataIntegrityViolationException.class, e -> translateDuplicateEmail(e, changes.getEmail()))
+                .flatMap(updated -> {
+                    if (updated > 0 && changes.getFirstName() == null && changes.getLastName() == null
+                            && changes.getEmail() == null) {
+                        // nothing was written, so there is nothing to record
+                        return Mono.just(true);
+                    }
+                    if (updated > 0) {
+                        // the change carries the whole employee, as the update left it
+                        return employeeRepository.findById(id)
+                                .flatMap(employee -> employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.UPDATED, employee))
+                                .thenReturn(true);
+                    }
+                    // a stale version also updates no rows, only then is the extra existence check needed
+                    if (changes.getVersion() == null) {
+                        return Mono.just(false);
+                    }
+                    return employeeRepository.existsById(id)
+                            .flatMap(exists -> exists
+                                    ? Mono.error(new OptimisticLockingFailureException("Employee " + id + " was modified"))
+                                    : Mono.just(false));
+                });
+        return transactionalOperator.transactional(patched);
+    }
+
+    @Override
+    public Mono<Boolean> deleteEmployee(long id) {
+        Mono<Boolean> deleted = employeeRepository.deleteDirectlyById(id)
+                .flatMap(count -> count > 0
+                        ? employeeChangeOutbox.recordDeleted(List.of(id)).thenReturn(true)
+                        : Mono.just(false));
+        return transactionalOperator.transactional(deleted);
+    }
+
+    @Override
+    public Mono<Integer> deleteEmployees(Collection<Long> ids) {
+        // keep each IN list bounded
+        Mono<Integer> deleted = Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(DELETE_CHUNK_SIZE)
+                // recorded for the whole chunk without a select before the delete, like the servlet application does
+                .concatMap(chunk -> employeeRepository.deleteDirectlyByIdIn(chunk)
+                        .flatMap(count -> count > 0
+                                ? employeeChangeOutbox.recordDeleted(chunk).thenReturn(count)
+                                : Mono.just(count)))
+                .reduce(0, Integer::sum);
+        return transactionalOperator.transactional(deleted);
+    }
+}
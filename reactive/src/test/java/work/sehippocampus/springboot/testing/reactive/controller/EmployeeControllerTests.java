@@ -0,0 +1,363 @@
+package work.sehippocampus.springboot.testing.reactive.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+import work.sehippocampus.springboot.testing.reactive.service.EmployeeService;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@WebFluxTest
+public class EmployeeControllerTests {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    private Employee employee;
+
+    private Employee employee2;
+
+    @BeforeEach
+    public void setup() {
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .version(0L)
+                .build();
+        employee2 = Employee.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .version(0L)
+                .build();
+    }
+
+    @DisplayName("従業員保存")
+    @Test
+    public void givenEmployeeObject_whenCreateEmployee_thenReturnSavedEmployee() {
+        // given - precondition or setup
+        given(employeeService.saveEmployee(any(Employee.class)))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.post().uri("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employee)
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(employee.getLastName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    @DisplayName("従業員一括保存")
+    @Test
+    public void givenEmployeeList_whenCreateEmployees_thenReturnBatchResult() {
+        // given - precondition or setup
+        EmployeeBatchResult batchResult = EmployeeBatchResult.builder()
+                .created(1)
+                .failed(1)
+                .items(List.of(
+                        EmployeeBatchItem.builder().index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build(),
+                        EmployeeBatchItem.builder().index(1).status(EmployeeBatchItem.Status.DUPLICATE).build()))
+                .build();
+        given(employeeService.saveEmployees(any())).willReturn(Mono.just(batchResult));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.post().uri("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(employee, employee2))
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.created").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(1)
+                .jsonPath("$.items[0].status").isEqualTo("CREATED")
+                .jsonPath("$.items[1].status").isEqualTo("DUPLICATE");
+    }
+
+    @DisplayName("全従業員一覧取得")
+    @Test
+    public void givenListOfEmployees_whenGetAllEmployee_thenReturnAllEmployeeList() {
+        // given - precondition or setup
+        given(employeeService.getEmployees(0L, 100)).willReturn(Flux.just(employee, employee2));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.get().uri("/api/employees").exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectHeader().doesNotExist(EmployeeController.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(2);
+    }
+
+    @DisplayName("従業員一覧取得(キーセットページング)")
+    @Test
+    public void givenFullPage_whenGetEmployeesWithLimit_thenReturnNextCursor() {
+        // given - precondition or setup
+        given(employeeService.getEmployees(0L, 2)).willReturn(Flux.just(employee, employee2));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/api/employees?after=0&limit=2")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectHeader().valueEquals(EmployeeController.NEXT_CURSOR_HEADER, "2")
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(2);
+    }
+
+    @DisplayName("全従業員NDJSONストリーム取得")
+    @Test
+    public void givenEmployees_whenStreamAllEmployees_thenReturnNdjson() {
+        // given - precondition or setup
+        given(employeeService.streamAllEmployees()).willReturn(Flux.just(employee, employee2));
+
+        // when - action or the behaviour that we are going test
+        Flux<Employee> body = webTestClient.get().uri("/api/employees")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(Employee.class)
+                .getResponseBody();
+
+        // then - verify the output
+        StepVerifier.create(body)
+                .expectNextMatches(e -> e.getId() == 1L)
+                .expectNextMatches(e -> e.getId() == 2L)
+                .verifyComplete();
+    }
+
+    @DisplayName("従業員ID検索")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() {
+        // given - precondition or setup
+        given(employeeService.getEmployeeById(employee.getId())).willReturn(Mono.just(employee));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/api/employees/{id}", employee.getId())
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(employee.getLastName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    @DisplayName("従業員ID検索時エラー")
+    @Test
+    public void givenInvalidEmployeeId_whenGetEmployeeById_thenReturn404() {
+        // given - precondition or setup
+        given(employeeService.getEmployeeById(employee.getId())).willReturn(Mono.empty());
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/api/employees/{id}", employee.getId())
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    @DisplayName("従業員更新")
+    @Test
+    public void givenUpdatedEmployee_whenUpdateEmployee_thenReturnUpdatedEmployee() {
+        // given - precondition or setup
+        Employee updatedEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        given(employeeService.getEmployeeById(employee.getId())).willReturn(Mono.just(employee));
+        given(employeeService.updateEmployee(any(Employee.class)))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.put()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedEmployee)
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(updatedEmployee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(updatedEmployee.getLastName())
+                .jsonPath("$.email").isEqualTo(updatedEmployee.getEmail())
+                .jsonPath("$.version").isEqualTo(0);
+    }
+
+    @DisplayName("従業員更新エラー")
+    @Test
+    public void givenInvalidEmployee_whenUpdateEmployee_thenReturn404() {
+        // given - precondition or setup
+        Employee updatedEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        given(employeeService.getEmployeeById(employee.getId())).willReturn(Mono.empty());
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.put()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedEmployee)
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    @DisplayName("従業員部分更新")
+    @Test
+    public void givenChanges_whenPatchEmployee_thenReturn204() {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class))).willReturn(Mono.just(true));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.patch()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\":\"yamada.taro@sehippocampus.work\"}")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNoContent();
+    }
+
+    @DisplayName("従業員部分更新エラー")
+    @Test
+    public void givenMissingEmployee_whenPatchEmployee_thenReturn404() {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class))).willReturn(Mono.just(false));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.patch()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\":\"jiro\"}")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    @DisplayName("従業員部分更新(変更なし)")
+    @Test
+    public void givenNoChanges_whenPatchEmployee_thenReturn400() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.patch()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"version\":0}")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isBadRequest();
+        verifyNoInteractions(employeeService);
+    }
+
+    @DisplayName("従業員部分更新時バージョン不一致")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenReturn409() {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.patch()
+                .uri("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\":\"jiro\",\"version\":0}")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isEqualTo(409);
+    }
+
+    @DisplayName("従業員削除")
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn204() {
+        // given - precondition or setup
+        given(employeeService.deleteEmployee(employee.getId())).willReturn(Mono.just(true));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.delete()
+                .uri("/api/employees/{id}", employee.getId())
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNoContent();
+    }
+
+    @DisplayName("従業員削除エラー")
+    @Test
+    public void givenMissingEmployeeId_whenDeleteEmployee_thenReturn404() {
+        // given - precondition or setup
+        given(employeeService.deleteEmployee(employee.getId())).willReturn(Mono.just(false));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.delete()
+                .uri("/api/employees/{id}", employee.getId())
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    @DisplayName("従業員一括削除")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturnDeletedCount() {
+        // given - precondition or setup
+        given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(Mono.just(2));
+
+        // when - action or the behaviour that we are going test
+        WebTestClient.ResponseSpec response = webTestClient.delete()
+                .uri("/api/employees?ids=1,2,3")
+                .exchange();
+
+        // then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.requested").isEqualTo(3)
+                .jsonPath("$.deleted").isEqualTo(2);
+    }
+}
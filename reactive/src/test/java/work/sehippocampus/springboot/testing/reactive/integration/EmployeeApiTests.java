@@ -0,0 +1,230 @@
+package work.sehippocampus.springboot.testing.reactive.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.reactive.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.reactive.exception.ResourceNotFoundException;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+import work.sehippocampus.springboot.testing.reactive.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.reactive.service.EmployeeService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public class EmployeeApiTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAll().block();
+        databaseClient.sql("delete from employee_changes").then().block();
+        employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+    }
+
+    @DisplayName("保存・更新・部分更新・削除の一連の操作")
+    @Test
+    public void givenEmployeeObject_whenCreateUpdatePatchDelete_thenFollowServletContract() {
+        // given - precondition or setup
+        Employee savedEmployee = webTestClient.post().uri("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employee)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Employee.class)
+                .returnResult()
+                .getResponseBody();
+
+        // when - action or the behaviour that we are going test
+        webTestClient.put().uri("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(savedEmployee.toBuilder().firstName("jiro").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("jiro")
+                .jsonPath("$.version").isEqualTo(1);
+        webTestClient.put().uri("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(savedEmployee.toBuilder().firstName("saburo").build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.patch().uri("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\":\"yamada.jiro@sehippocampus.work\"}")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        // then - verify the output
+        webTestClient.get().uri("/api/employees/{id}", savedEmployee.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("jiro")
+                .jsonPath("$.email").isEqualTo("yamada.jiro@sehippocampus.work")
+                .jsonPath("$.version").isEqualTo(2);
+        webTestClient.delete().uri("/api/employees/{id}", savedEmployee.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/employees/{id}", savedEmployee.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        // the servlet application serves the changes from its outbox, the rejected update is not one
+        List<String> changes = databaseClient.sql("select type, payload from employee_changes where employee_id = :id order by id")
+                .bind("id", savedEmployee.getId())
+                .map(row -> row.get("type", String.class) + " " + row.get("payload", String.class))
+                .all()
+                .collectList()
+                .block();
+        assertThat(changes).hasSize(4);
+        assertThat(changes.get(0)).startsWith("CREATED ").contains("\"firstName\":\"taro\"", "\"version\":0");
+        assertThat(changes.get(1)).startsWith("UPDATED ").contains("\"firstName\":\"jiro\"", "\"version\":1");
+        assertThat(changes.get(2)).startsWith("UPDATED ").contains("\"email\":\"yamada.jiro@sehippocampus.work\"", "\"version\":2");
+        assertThat(changes.get(3)).startsWith("DELETED ").contains("\"employee\":null");
+    }
+
+    @DisplayName("一括保存とキーセットページング・NDJSONストリーム取得")
+    @Test
+    public void givenBatchOfEmployees_whenPageAndStream_thenReturnAllInIdOrder() {
+        // given - precondition or setup
+        List<Employee> employees = IntStream.range(0, 120)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("taro" + i)
+                        .lastName("yamada")
+                        .email("taro" + i + ".yamada@sehippocampus.work")
+                        .build())
+                .collect(Collectors.toList());
+        webTestClient.post().uri("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employees)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.created").isEqualTo(120);
+
+        // when - action or the behaviour that we are going test
+        String cursor = webTestClient.get().uri("/api/employees?limit=100")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Employee.class)
+                .getResponseHeaders()
+                .getFirst("X-Next-Cursor");
+        Flux<Employee> stream = webTestClient.get().uri("/api/employees")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Employee.class)
+                .getResponseBody();
+
+        // then - verify the output
+        webTestClient.get().uri("/api/employees?after={after}", cursor)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(20);
+        StepVerifier.create(stream.map(Employee::getFirstName))
+                .expectNext("taro0")
+                .expectNextCount(118)
+                .expectNext("taro119")
+                .verifyComplete();
+        assertThat(employeeRepository.count().block()).isEqualTo(120);
+        assertThat(databaseClient.sql("select count(*) from employee_changes where type = 'CREATED'")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block()).isEqualTo(120);
+    }
+
+    @DisplayName("一括保存時の大文字小文字違い・長すぎる値")
+    @Test
+    public void givenEmailsDifferingInCaseAndTooLongValue_whenSaveEmployees_thenDuplicateAndInvalid() {
+        // given - precondition or setup
+        List<Employee> employees = List.of(
+                employee,
+                employee.toBuilder().email("Taro.Yamada@sehippocampus.work").build(),
+                employee.toBuilder().firstName("x".repeat(Employee.MAX_FIELD_LENGTH + 1)).email("jiro@sehippocampus.work").build());
+
+        // when - action or the behaviour that we are going test
+        EmployeeBatchResult result = employeeService.saveEmployees(employees).block();
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(EmployeeBatchItem::getStatus).containsExactly(
+                EmployeeBatchItem.Status.CREATED, EmployeeBatchItem.Status.DUPLICATE, EmployeeBatchItem.Status.INVALID);
+    }
+
+    @DisplayName("一括保存時に検索で見つからない重複Email")
+    @Test
+    public void givenEmailTheLookupMisses_whenSaveEmployees_thenSaveEachAloneAndReportDuplicate() {
+        // given - precondition or setup
+        // the lookup asks for the lower case email, which the case sensitive index of H2 does not find (like an
+        // employee created concurrently), the insert still violates it
+        employeeService.saveEmployee(employee.toBuilder().email("Taro.Yamada@sehippocampus.work").build()).block();
+        List<Employee> employees = List.of(
+                employee.toBuilder().email("jiro.yamada@sehippocampus.work").build(),
+                employee.toBuilder().email("Taro.Yamada@sehippocampus.work").build());
+
+        // when - action or the behaviour that we are going test
+        EmployeeBatchResult result = employeeService.saveEmployees(employees).block();
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(EmployeeBatchItem::getStatus).containsExactly(
+                EmployeeBatchItem.Status.CREATED, EmployeeBatchItem.Status.DUPLICATE);
+        assertThat(employeeRepository.count().block()).isEqualTo(2);
+        assertThat(databaseClient.sql("select count(*) from employee_changes")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block()).isEqualTo(2);
+    }
+
+    @DisplayName("保存時の重複Email以外の制約違反")
+    @Test
+    public void givenEmployeeWithoutFirstName_whenSaveEmployee_thenConstraintViolationIsNotReportedAsDuplicate() {
+        // given - precondition or setup
+        employeeService.saveEmployee(employee).block();
+
+        // when - action or the behaviour that we are going test
+        StepVerifier.create(employeeService.saveEmployee(employee))
+
+                // then - verify the output
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        StepVerifier.create(employeeService.saveEmployee(employee.toBuilder()
+                        .firstName(null)
+                        .email("jiro.yamada@sehippocampus.work")
+                        .build()))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,118 @@
+package work.sehippocampus.springboot.testing.reactive.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator used to compare the servlet (8080) and reactive (8081) applications.
+ * Each of the concurrent users sends GET requests back to back for the given duration, then throughput and
+ * latency percentiles are printed.
+ *
+ * <pre>
+ * java -cp target/test-classes work.sehippocampus.springboot.testing.reactive.loadtest.HttpLoadTest \
+ *     http://localhost:8081/api/employees/1 200 30
+ * </pre>
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        Result result = run(uri, concurrency, duration);
+        System.out.printf("%s concurrency=%d requests=%d errors=%d throughput=%.0f req/s p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+                uri, concurrency, result.requests(), result.errors, result.throughput(),
+                result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9),
+                result.percentileMillis(100));
+    }
+
+    public static Result run(URI uri, int concurrency, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(users.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            try {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        users.shutdown();
+        Arrays.sort(all);
+        return new Result(all, errors.get(), duration);
+    }
+
+    public static class Result {
+        private final long[] sortedLatencies;
+        private final long errors;
+        private final Duration duration;
+
+        Result(long[] sortedLatencies, long errors, Duration duration) {
+            this.sortedLatencies = sortedLatencies;
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        public long requests() {
+            return sortedLatencies.length;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public double throughput() {
+            return sortedLatencies.length / (duration.toMillis() / 1000.0);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
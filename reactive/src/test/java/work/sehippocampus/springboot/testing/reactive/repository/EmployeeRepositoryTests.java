@@ -0,0 +1,160 @@
+package work.sehippocampus.springboot.testing.reactive.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import work.sehippocampus.springboot.testing.reactive.model.Employee;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@ActiveProfiles("h2")
+@Import(EmployeeIdAllocator.class)
+@ImportAutoConfiguration(TransactionAutoConfiguration.class)
+public class EmployeeRepositoryTests {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeIdAllocator employeeIdAllocator;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        employeeRepository.deleteAll().block();
+        employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+    }
+
+    @DisplayName("ID採番(hibernateのpooledと同じ範囲)")
+    @Test
+    public void givenSequenceTable_whenNextId_thenReserveBlockLikeHibernatePooledOptimizer() {
+        // given - precondition or setup
+        long hi = nextVal();
+
+        // when - action or the behaviour that we are going test
+        Long first = employeeIdAllocator.nextId().block();
+        Long second = employeeIdAllocator.nextId().block();
+
+        // then - verify the output
+        assertThat(first).isEqualTo(hi - EmployeeIdAllocator.ALLOCATION_SIZE + 1);
+        assertThat(second).isEqualTo(first + 1);
+        assertThat(nextVal()).isEqualTo(hi + EmployeeIdAllocator.ALLOCATION_SIZE);
+    }
+
+    @DisplayName("従業員保存")
+    @Test
+    public void givenEmployeeObject_whenSave_thenReturnSavedEmployee() {
+        // given - precondition or setup
+        employee.setId(employeeIdAllocator.nextId().block());
+
+        // when - action or the behaviour that we are going test
+        Employee savedEmployee = employeeRepository.save(employee).block();
+
+        // then - verify the output
+        assertThat(savedEmployee.getVersion()).isZero();
+        assertThat(employeeRepository.findByEmail(employee.getEmail()).block().getId()).isEqualTo(employee.getId());
+    }
+
+    @DisplayName("従業員部分更新")
+    @Test
+    public void givenEmployeeObject_whenUpdateNonNullFields_thenOnlyGivenFieldsAreUpdated() {
+        // given - precondition or setup
+        employee.setId(employeeIdAllocator.nextId().block());
+        employeeRepository.save(employee).block();
+
+        // when - action or the behaviour that we are going test
+        Integer updated = employeeRepository.updateNonNullFields(employee.getId(),
+                null, null, "yamada.taro@sehippocampus.work", 0L).block();
+        Integer stale = employeeRepository.updateNonNullFields(employee.getId(),
+                "jiro", null, null, 0L).block();
+        Integer unchanged = employeeRepository.updateNonNullFields(employee.getId(), null, null, null, 1L).block();
+
+        // then - verify the output
+        Employee patchedEmployee = employeeRepository.findById(employee.getId()).block();
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isZero();
+        assertThat(unchanged).isEqualTo(1);
+        assertThat(patchedEmployee.getFirstName()).isEqualTo("taro");
+        assertThat(patchedEmployee.getEmail()).isEqualTo("yamada.taro@sehippocampus.work");
+        assertThat(patchedEmployee.getVersion()).isEqualTo(1L);
+    }
+
+    @DisplayName("従業員一括削除")
+    @Test
+    public void givenEmployeeList_whenDeleteDirectlyByIdIn_thenRemoveOnlyGivenEmployees() {
+        // given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .id(employeeIdAllocator.nextId().block())
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        employee.setId(employeeIdAllocator.nextId().block());
+        employeeRepository.saveAll(List.of(employee, employee1)).blockLast();
+
+        // when - action or the behaviour that we are going test
+        Integer deleted = employeeRepository.deleteDirectlyByIdIn(List.of(employee.getId(), employee1.getId() + 1000)).block();
+        Integer deletedAgain = employeeRepository.deleteDirectlyById(employee.getId()).block();
+
+        // then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isZero();
+        assertThat(employeeRepository.findAll().map(Employee::getId).collectList().block())
+                .containsExactly(employee1.getId());
+    }
+
+    @DisplayName("全従業員ストリーム取得(バックプレッシャー)")
+    @Test
+    public void givenEmployeeList_whenStreamAllWithDemand_thenEmitOnlyRequestedEmployees() {
+        // given - precondition or setup
+        Flux.range(0, 10)
+                .concatMap(i -> employeeIdAllocator.nextId()
+                        .flatMap(id -> employeeRepository.save(Employee.builder()
+                                .id(id)
+                                .firstName("taro" + i)
+                                .lastName("yamada")
+                                .email("taro" + i + ".yamada@sehippocampus.work")
+                                .build())))
+                .blockLast();
+
+        // when - action or the behaviour that we are going test
+        // then - verify the output
+        StepVerifier.create(employeeRepository.streamAll(), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(7)
+                .expectNextCount(7)
+                .verifyComplete();
+    }
+
+    private long nextVal() {
+        return databaseClient.sql("select next_val from employees_seq")
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .block();
+    }
+}
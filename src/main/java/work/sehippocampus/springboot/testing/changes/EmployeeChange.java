@@ -0,0 +1,16 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+// a row of the outbox: the id is the SSE event id and the delta token, the payload the event data
+// (an EmployeeChangeEvent as JSON)
+@Value
+public class EmployeeChange {
+    long id;
+
+    String payload;
+
+    Instant recordedAt;
+}
@@ -0,0 +1,410 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans the changes of the {@link EmployeeChangeOutbox} out to the subscribers of GET /api/employees/changes
+ * (server-sent events).
+ * <p>
+ * A single dispatcher thread reads the outbox in id order, right after a commit on this node and every poll interval
+ * for the changes of other nodes, and offers each change to every subscriber's bounded buffer. A few sender threads
+ * write the buffers to the connections, one subscriber at a time, so a slow client holds up neither the dispatcher nor
+ * the others. A subscriber whose buffer is full is disconnected instead of buffered without bound, and resumes like
+ * after any other disconnect.
+ * <p>
+ * The event id is the outbox id. A subscriber that sends Last-Event-ID is first served the later changes from the
+ * outbox, then joins the live feed. When those changes are no longer kept it gets a {@value #RESET_EVENT} event and
+ * has to reload the employees.
+ * <p>
+ * Ids are allocated at insert but committed in any order, so a missing id may still show up. The dispatcher waits
+ * for it up to the gap timeout and then moves on; a change that commits later still is delivered out of order.
+ */
+@Slf4j
+@Component
+public class EmployeeChangeFeed {
+
+    static final String METRIC_PREFIX = "employee.changes";
+    static final String RESET_EVENT = "reset";
+    private static final int READ_BATCH_SIZE = 500;
+    // ids given up on are looked for this long, at most this many of them
+    private static final Duration LATE_WINDOW = Duration.ofMinutes(5);
+    private static final int MAX_LATE_IDS = 1000;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+    private static final Duration RECONNECT_TIME = Duration.ofSeconds(3);
+    // clients reconnect (with Last-Event-ID) after this, which spreads them over the nodes again
+    private static final Duration SUBSCRIPTION_TIMEOUT = Duration.ofMinutes(30);
+    // stands for a heartbeat in a subscriber's buffer
+    private static final EmployeeChange HEARTBEAT = new EmployeeChange(0, null, null);
+
+    private final EmployeeChangeOutbox outbox;
+    private final int bufferSize;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final ExecutorService senders;
+    private final Counter overflows;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // held while changes are offered to the subscribers, and by a subscriber that switches from replay to live
+    private final Object fanOutLock = new Object();
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    // the last id offered to the subscribers, guarded by fanOutLock
+    private long cursor;
+
+    // dispatcher thread only: since when the next id is missing, and the ids given up on (until when to look for them)
+    private Instant gapSince;
+    private final NavigableMap<Long, Instant> lateIds = new TreeMap<>();
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public EmployeeChangeFeed(EmployeeChangeOutbox outbox, MeterRegistry meterRegistry,
+                              @Value("${employee.changes.buffer-size:256}") int bufferSize,
+                              @Value("${employee.changes.sender-threads:8}") int senderThreads,
+                              @Value("${employee.changes.poll-interval:500ms}") Duration pollInterval,
+                              @Value("${employee.changes.gap-timeout:5s}") Duration gapTimeout,
+                              @Value("${employee.changes.retention:7d}") Duration retention) {
+        this.outbox = outbox;
+        this.bufferSize = bufferSize;
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        AtomicInteger senderNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, task -> {
+            Thread sender = new Thread(task, "employee-change-sender-" + senderNumber.incrementAndGet());
+            sender.setDaemon(true);
+            return sender;
+        });
+
+        Gauge.builder(METRIC_PREFIX + ".subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        this.overflows = Counter.builder(METRIC_PREFIX + ".overflows")
+                .description("subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (fanOutLock) {
+            cursor = outbox.maxId();
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatch, "employee-change-dispatcher");
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeUps.release();
+        dispatcher.join();
+        // the clients reconnect, to another node or to this one once it is back
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        senders.shutdown();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onRecorded(EmployeeChangeOutbox.Recorded recorded) {
+        wakeUps.release();
+    }
+
+    /**
+     * @param lastEventId the id of the last event the client has seen, null for only the changes from now on
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(SUBSCRIPTION_TIMEOUT.toMillis()));
+    }
+
+    SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(true));
+
+        // the ids after lastEventId were pruned when the oldest kept one is further on (or none is kept)
+        boolean reset = lastEventId != null && outbox.isPrunedAfter(lastEventId);
+        try {
+            // sent when the emitter is initialized, which also commits the response headers
+            emitter.send(SseEmitter.event().reconnectTime(RECONNECT_TIME.toMillis()));
+            if (reset) {
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data(""));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        synchronized (fanOutLock) {
+            subscriber.position = lastEventId == null || reset ? cursor : lastEventId;
+            subscriber.replaying = subscriber.position < cursor;
+            subscribers.add(subscriber);
+        }
+        if (subscriber.replaying) {
+            subscriber.scheduled.set(true);
+            senders.execute(subscriber::replay);
+        }
+        return emitter;
+    }
+
+    private void dispatch() {
+        Instant nextHeartbeat = Instant.now().plus(HEARTBEAT_INTERVAL);
+        Instant nextPrune = Instant.now();
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                if (!running) {
+                    return;
+                }
+                poll();
+
+                Instant now = Instant.now();
+                if (now.isAfter(nextHeartbeat)) {
+                    heartbeat();
+                    nextHeartbeat = now.plus(HEARTBEAT_INTERVAL);
+                }
+                if (now.isAfter(nextPrune)) {
+                    int pruned = outbox.deleteRecordedBefore(now.minus(retention));
+                    log.debug("pruned {} employee changes older than {}", pruned, retention);
+                    nextPrune = now.plus(PRUNE_INTERVAL);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("employee change dispatch failed", e);
+            }
+        }
+    }
+
+    void poll() {
+        Instant now = Instant.now();
+        long from;
+        synchronized (fanOutLock) {
+            from = cursor;
+        }
+        List<EmployeeChange> changes = outbox.findAfter(from, Long.MAX_VALUE, READ_BATCH_SIZE);
+
+        List<EmployeeChange> next = new ArrayList<>(changes.size());
+        long position = from;
+        for (EmployeeChange change : changes) {
+            if (change.getId() != position + 1) {
+                if (gapSince == null) {
+                    gapSince = now;
+                }
+                if (now.isBefore(gapSince.plus(gapTimeout))) {
+                    break;
+                }
+                giveUp(position + 1, change.getId(), now);
+            }
+            gapSince = null;
+            next.add(change);
+            position = change.getId();
+        }
+        List<EmployeeChange> late = findLate(now);
+        if (next.isEmpty() && late.isEmpty()) {
+            return;
+        }
+
+        synchronized (fanOutLock) {
+            for (Subscriber subscriber : subscribers) {
+                late.forEach(change -> subscriber.offer(change, true));
+                next.forEach(change -> subscriber.offer(change, false));
+            }
+            cursor = position;
+        }
+        subscribers.forEach(Subscriber::schedule);
+        if (next.size() == READ_BATCH_SIZE) {
+            // there is more to read
+            wakeUps.release();
+        }
+    }
+
+    // the ids from (inclusive) to (exclusive) are missing for longer than the gap timeout
+    private void giveUp(long from, long to, Instant now) {
+        log.debug("employee changes {} to {} not committed after {}, moving on", from, to - 1, gapTimeout);
+        for (long id = Math.max(from, to - MAX_LATE_IDS); id < to; id++) {
+            if (lateIds.size() == MAX_LATE_IDS) {
+                lateIds.pollFirstEntry();
+            }
+            lateIds.put(id, now.plus(LATE_WINDOW));
+        }
+    }
+
+    private List<EmployeeChange> findLate(Instant now) {
+        lateIds.values().removeIf(lookUntil -> lookUntil.isBefore(now));
+        if (lateIds.isEmpty()) {
+            return List.of();
+        }
+        List<EmployeeChange> late = outbox.findByIds(lateIds.keySet());
+        late.forEach(change -> lateIds.remove(change.getId()));
+        return late;
+    }
+
+    private void heartbeat() {
+        synchronized (fanOutLock) {
+            subscribers.forEach(Subscriber::heartbeat);
+        }
+        subscribers.forEach(Subscriber::schedule);
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<EmployeeChange> buffer = new ArrayBlockingQueue<>(bufferSize);
+        // a sender task (drain or replay) is queued or running: the emitter is only ever written by one thread
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean completeOnClose;
+
+        // the last id buffered or sent. written by the replay until it is live, by the dispatcher under fanOutLock after
+        private long position;
+        // guarded by fanOutLock
+        private boolean replaying;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // with fanOutLock held. late changes are below the position
+        void offer(EmployeeChange change, boolean late) {
+            if (replaying || closed.get() || !late && change.getId() <= position) {
+                return;
+            }
+            if (!buffer.offer(change)) {
+                overflows.increment();
+                close(true);
+                return;
+            }
+            if (!late) {
+                position = change.getId();
+            }
+        }
+
+        // with fanOutLock held. a subscriber with changes in its buffer has no need of one
+        void heartbeat() {
+            if (!replaying && buffer.isEmpty()) {
+                buffer.offer(HEARTBEAT);
+            }
+        }
+
+        void schedule() {
+            if (senders.isShutdown()) {
+                return;
+            }
+            if ((closed.get() ? completeOnClose : !buffer.isEmpty()) && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void replay() {
+            try {
+                while (!closed.get()) {
+                    long upTo;
+                    synchronized (fanOutLock) {
+                        if (position >= cursor) {
+                            replaying = false;
+                            break;
+                        }
+                        upTo = cursor;
+                    }
+                    List<EmployeeChange> changes = outbox.findAfter(position, upTo, READ_BATCH_SIZE);
+                    for (EmployeeChange change : changes) {
+                        send(change);
+                        position = change.getId();
+                    }
+                    if (changes.size() < READ_BATCH_SIZE) {
+                        // the rest are ids that were never committed
+                        position = upTo;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(false);
+            } catch (RuntimeException e) {
+                log.warn("replay of employee changes failed", e);
+                close(true);
+            } finally {
+                scheduled.set(false);
+            }
+            schedule();
+        }
+
+        private void drain() {
+            try {
+                EmployeeChange change;
+                while (!closed.get() && (change = buffer.poll()) != null) {
+                    send(change);
+                }
+            } catch (IOException | RuntimeException e) {
+                // the client went away, or the emitter timed out meanwhile.
+                // tomcat may also fail with its own exception on a connection it has already recycled
+                close(false);
+            } finally {
+                if (closed.get() && completeOnClose) {
+                    completeOnClose = false;
+                    complete();
+                }
+                scheduled.set(false);
+            }
+            schedule();
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("change feed response already closed", e);
+            }
+        }
+
+        private void send(EmployeeChange change) throws IOException {
+            if (change == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment(""));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getId()))
+                        .data(change.getPayload(), MediaType.APPLICATION_JSON));
+            }
+        }
+
+        // complete: end the response, which is left to the sender so that a blocked write does not hold up the caller
+        void close(boolean complete) {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                buffer.clear();
+                completeOnClose = complete;
+                schedule();
+            }
+        }
+    }
+}
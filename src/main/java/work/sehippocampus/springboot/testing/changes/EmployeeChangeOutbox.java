@@ -0,0 +1,150 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The transactional outbox of employee changes (employee_changes), read by {@link EmployeeChangeFeed} and
+ * {@link EmployeeDeltaSync}.
+ * <p>
+ * A change is recorded in the transaction that makes it, so it is in the outbox exactly when it is committed.
+ * The rows are inserted with JDBC batches and not as entities: hibernate does not batch inserts with
+ * auto-increment ids, and an import chunk records a thousand changes at once.
+ */
+@Component
+public class EmployeeChangeOutbox {
+
+    private static final String INSERT = "insert into employee_changes (employee_id, type, payload) "
+            + "values (:employeeId, :type, :payload)";
+    private static final String SELECT = "select id, payload, created_at from employee_changes";
+    private static final RowMapper<EmployeeChange> ROW_MAPPER = (rs, rowNum) ->
+            new EmployeeChange(rs.getLong("id"), rs.getString("payload"), rs.getTimestamp("created_at").toInstant());
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectWriter eventWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EmployeeChangeOutbox(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventWriter = objectMapper.writerFor(EmployeeChangeEvent.class);
+        this.eventPublisher = eventPublisher;
+    }
+
+    // published in the transaction that recorded changes, the feed reads the outbox once it has committed
+    public static final class Recorded {
+        static final Recorded INSTANCE = new Recorded();
+
+        private Recorded() {
+        }
+    }
+
+    // employees as they were inserted or updated, after the flush that gave them their version
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSaved(EmployeeChangeEvent.Type type, Collection<Employee> employees) {
+        record(employees.stream()
+                .map(employee -> EmployeeChangeEvent.builder()
+                        .type(type)
+                        .employeeId(employee.getId())
+                        .employee(new EmployeeDto(employee.getId(), employee.getFirstName(), employee.getLastName(),
+                                employee.getEmail(), employee.getVersion()))
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Collection<Long> ids) {
+        record(ids.stream()
+                .map(id -> EmployeeChangeEvent.builder()
+                        .type(EmployeeChangeEvent.Type.DELETED)
+                        .employeeId(id)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    private void record(List<EmployeeChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] rows = events.stream()
+                .map(event -> new MapSqlParameterSource()
+                        .addValue("employeeId", event.getEmployeeId())
+                        .addValue("type", event.getType().name())
+                        .addValue("payload", toJson(event)))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        eventPublisher.publishEvent(Recorded.INSTANCE);
+    }
+
+    private String toJson(EmployeeChangeEvent event) {
+        try {
+            return eventWriter.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the reads below run outside a transaction, so they go to the primary (a replica would hold the feed back
+    // by its lag) and a poll is a single query, without a hibernate session around it
+
+    // changes after the id, up to and including upTo, in id order
+    public List<EmployeeChange> findAfter(long after, long upTo, int limit) {
+        return jdbcTemplate.query(SELECT + " where id > :after and id <= :upTo order by id limit :limit",
+                new MapSqlParameterSource()
+                        .addValue("after", after)
+                        .addValue("upTo", upTo)
+                        .addValue("limit", limit),
+                ROW_MAPPER);
+    }
+
+    public List<EmployeeChange> findByIds(Collection<Long> ids) {
+        return jdbcTemplate.query(SELECT + " where id in (:ids) order by id",
+                new MapSqlParameterSource("ids", ids), ROW_MAPPER);
+    }
+
+    // 0 when nothing was ever recorded
+    public long maxId() {
+        Long maxId = jdbcTemplate.getJdbcTemplate().queryForObject("select max(id) from employee_changes", Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    // the oldest change that is still kept, empty when none is
+    public Optional<Long> minId() {
+        return Optional.ofNullable(
+                jdbcTemplate.getJdbcTemplate().queryForObject("select min(id) from employee_changes", Long.class));
+    }
+
+    // whether some of the changes after the id are no longer kept
+    public boolean isPrunedAfter(long id) {
+        return id + 1 < minId().orElse(Long.MAX_VALUE);
+    }
+
+    // the newest change is always kept: without it a pruned id could not be told from a current one, and
+    // InnoDB before MySQL 8 starts an empty table's auto-increment over at restart, handing out old ids again
+    @Transactional
+    public int deleteRecordedBefore(Instant cutoff) {
+        return jdbcTemplate.update("delete from employee_changes where created_at < :cutoff and id < :maxId",
+                new MapSqlParameterSource()
+                        .addValue("cutoff", Timestamp.from(cutoff))
+                        .addValue("maxId", maxId()));
+    }
+}
@@ -0,0 +1,95 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.dto.EmployeeDelta;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pages of the changes after a token, for GET /api/employees/delta.
+ * <p>
+ * The token is an {@link EmployeeChangeOutbox} id: the outbox is the modification sequence, its DELETED changes the
+ * tombstones. A page is a range of the outbox's primary key, so a sync reads as many rows as there were changes,
+ * however large the table. Several changes of an employee within a page are sent as its latest one.
+ * <p>
+ * A page ends before a missing id that is younger than the gap timeout, it may belong to a transaction that has not
+ * committed yet and the token must not move past it (see {@link EmployeeChangeFeed}).
+ */
+@Component
+public class EmployeeDeltaSync {
+
+    private final EmployeeChangeOutbox outbox;
+    private final ObjectReader eventReader;
+    private final Duration gapTimeout;
+
+    public EmployeeDeltaSync(EmployeeChangeOutbox outbox, ObjectMapper objectMapper,
+                             @Value("${employee.changes.gap-timeout:5s}") Duration gapTimeout) {
+        this.outbox = outbox;
+        this.eventReader = objectMapper.readerFor(EmployeeChangeEvent.class);
+        this.gapTimeout = gapTimeout;
+    }
+
+    // the token to start from, before the employees are read in full
+    public long currentToken() {
+        return outbox.maxId();
+    }
+
+    // empty when changes after the token are no longer kept, the employees have to be read in full again
+    public Optional<EmployeeDelta> changesSince(long token, int limit) {
+        if (outbox.isPrunedAfter(token)) {
+            return Optional.empty();
+        }
+        List<EmployeeChange> changes = outbox.findAfter(token, Long.MAX_VALUE, limit);
+        Instant settled = Instant.now().minus(gapTimeout);
+
+        // in the order of each employee's latest change
+        Map<Long, EmployeeChangeEvent> latest = new LinkedHashMap<>();
+        long position = token;
+        for (EmployeeChange change : changes) {
+            if (change.getId() != position + 1 && change.getRecordedAt().isAfter(settled)) {
+                break;
+            }
+            EmployeeChangeEvent event = toEvent(change.getPayload());
+            latest.remove(event.getEmployeeId());
+            latest.put(event.getEmployeeId(), event);
+            position = change.getId();
+        }
+
+        List<EmployeeDto> upserted = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (EmployeeChangeEvent event : latest.values()) {
+            if (event.getType() == EmployeeChangeEvent.Type.DELETED) {
+                deleted.add(event.getEmployeeId());
+            } else {
+                upserted.add(event.getEmployee());
+            }
+        }
+        return Optional.of(EmployeeDelta.builder()
+                .upserted(upserted)
+                .deleted(deleted)
+                .token(position)
+                .hasMore(changes.size() == limit && position == changes.get(changes.size() - 1).getId())
+                .build());
+    }
+
+    private EmployeeChangeEvent toEvent(String payload) {
+        try {
+            return eventReader.readValue(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
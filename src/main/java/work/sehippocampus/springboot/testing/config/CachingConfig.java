@@ -0,0 +1,12 @@
+package work.sehippocampus.springboot.testing.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// caches are defined in application.properties (spring.cache.*), run with the "nocache" profile to disable them
+@Configuration
+@EnableCaching
+@Profile("!nocache")
+public class CachingConfig {
+}
@@ -0,0 +1,53 @@
+package work.sehippocampus.springboot.testing.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import work.sehippocampus.springboot.testing.metrics.QueryCountInterceptor;
+import work.sehippocampus.springboot.testing.metrics.QueryCounter;
+import work.sehippocampus.springboot.testing.metrics.QueryCountingDataSource;
+
+import javax.sql.DataSource;
+
+// http.server.requests, hikaricp.* and hibernate.* come from actuator, this adds @Timed and per-request query counts
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public static QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    // counted where JPA, flyway and jdbc get their connections (the "dataSource" bean, with replicas the routing one),
+    // so that JdbcTemplate's statements count as much as hibernate's
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(QueryCounter queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && "dataSource".equals(beanName)
+                        ? new QueryCountingDataSource((DataSource) bean, queryCounter)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer queryCountConfigurer(QueryCounter queryCounter, MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new QueryCountInterceptor(queryCounter, meterRegistry));
+            }
+        };
+    }
+}
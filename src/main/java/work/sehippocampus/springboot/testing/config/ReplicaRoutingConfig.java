@@ -0,0 +1,94 @@
+package work.sehippocampus.springboot.testing.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import work.sehippocampus.springboot.testing.datasource.ReadWriteRoutingDataSource;
+import work.sehippocampus.springboot.testing.datasource.ReadYourWritesFilter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// active when employee.datasource.replicas[0].url is set, spring.datasource.* stays the primary (see application.properties)
+@Configuration
+@ConditionalOnProperty("employee.datasource.replicas[0].url")
+public class ReplicaRoutingConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    @Bean
+    @ConfigurationProperties(HIKARI_PREFIX)
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 DataSourceProperties properties,
+                                                                 Environment environment,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        List<ReplicaProperties> replicaProperties = binder
+                .bind("employee.datasource.replicas", Bindable.listOf(ReplicaProperties.class))
+                .orElse(Collections.emptyList());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ReplicaProperties replica = replicaProperties.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            // same pool settings as the primary (auto-commit, sizes, timeouts), only the target differs
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            dataSource.setReadOnly(true);
+            // replicas are not beans, so the hikaricp.* metrics are not bound for them automatically
+            meterRegistry.ifAvailable(registry ->
+                    dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(dataSource);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    // what JPA, flyway and jdbc use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty("employee.datasource.read-your-writes")
+    public ReadYourWritesFilter readYourWritesFilter(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new ReadYourWritesFilter(readWriteRoutingDataSource);
+    }
+
+    @Getter
+    @Setter
+    public static class ReplicaProperties {
+        private String url;
+
+        // the primary's credentials when not set
+        private String username;
+
+        private String password;
+    }
+}
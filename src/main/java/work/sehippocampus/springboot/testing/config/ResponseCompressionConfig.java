@@ -0,0 +1,21 @@
+package work.sehippocampus.springboot.testing.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import work.sehippocampus.springboot.testing.web.SmallResponseBufferingFilter;
+
+// tomcat compresses per server.compression.* (application.properties), the filter makes it keep to the minimum size.
+// not in the command line runs (--spring.main.web-application-type=none), there is no server then
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty("server.compression.enabled")
+public class ResponseCompressionConfig {
+
+    @Bean
+    public SmallResponseBufferingFilter smallResponseBufferingFilter(ServerProperties serverProperties) {
+        return new SmallResponseBufferingFilter((int) serverProperties.getCompression().getMinResponseSize().toBytes());
+    }
+}
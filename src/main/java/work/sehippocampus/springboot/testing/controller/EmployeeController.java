@@ -1,21 +1,106 @@
 package work.sehippocampus.springboot.testing.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import work.sehippocampus.springboot.testing.changes.EmployeeChangeFeed;
+import work.sehippocampus.springboot.testing.changes.EmployeeDeltaSync;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeDeleteResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeDelta;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeIngestStatus;
+import work.sehippocampus.springboot.testing.dto.EmployeeLookupResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeSearchResult;
+import work.sehippocampus.springboot.testing.importer.EmployeeImporter;
 import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeSearchSorts;
 import work.sehippocampus.springboot.testing.service.EmployeeService;
+import work.sehippocampus.springboot.testing.service.EmployeeWriteBehindQueue;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String QUEUE_FULL_RETRY_AFTER_SECONDS = "1";
+    // offset paging reads and discards every skipped row, deeper than this the filters have to be narrowed
+    private static final int MAX_SEARCH_OFFSET = 10000;
+    private static final String DEFAULT_SUGGEST_LIMIT = "10";
+    private static final int MAX_SUGGEST_LIMIT = 50;
+    // the columns EmployeeImporter reads (id and version are ignored there), one employee per line.
+    // quoted only where needed (a comma in a name), no flush per row: the response buffer decides when bytes go out
+    private static final ObjectWriter CSV_WRITER = new CsvMapper()
+            .writerFor(EmployeeDto.class)
+            .with(CsvSchema.builder()
+                    .addColumn("id")
+                    .addColumn("firstName")
+                    .addColumn("lastName")
+                    .addColumn("email")
+                    .addColumn("version")
+                    .setUseHeader(true)
+                    .build())
+            .with(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final MediaType TEXT_CSV_UTF8 = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_GZIP = MediaType.valueOf("application/gzip");
+
     private EmployeeService employeeService;
+    private EmployeeWriteBehindQueue writeBehindQueue;
+    private EmployeeImporter employeeImporter;
+    private EmployeeChangeFeed employeeChangeFeed;
+    private EmployeeDeltaSync employeeDeltaSync;
+    private ObjectMapper objectMapper;
 
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, EmployeeWriteBehindQueue writeBehindQueue,
+                              EmployeeImporter employeeImporter, EmployeeChangeFeed employeeChangeFeed,
+                              EmployeeDeltaSync employeeDeltaSync, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.writeBehindQueue = writeBehindQueue;
+        this.employeeImporter = employeeImporter;
+        this.employeeChangeFeed = employeeChangeFeed;
+        this.employeeDeltaSync = employeeDeltaSync;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -24,40 +109,298 @@ public class EmployeeController {
         return employeeService.saveEmployee(employee);
     }
 
+    // opt-in write-behind: the employee is queued and written with others in a batch, progress is under Location
+    @PostMapping(headers = "Prefer=" + RESPOND_ASYNC)
+    public ResponseEntity<EmployeeIngestStatus> createEmployeeAsync(@RequestBody Employee employee) {
+        return writeBehindQueue.submit(employee)
+                .map(queued -> ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                                .path("/ingestions/{trackingId}")
+                                .buildAndExpand(queued.getTrackingId())
+                                .toUri())
+                        .header("Preference-Applied", RESPOND_ASYNC)
+                        .body(queued))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, QUEUE_FULL_RETRY_AFTER_SECONDS)
+                        .build());
+    }
+
+    @GetMapping("/ingestions/{trackingId}")
+    public ResponseEntity<EmployeeIngestStatus> getIngestStatus(@PathVariable String trackingId) {
+        return writeBehindQueue.getStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/batch")
+    public EmployeeBatchResult createEmployees(@RequestBody List<Employee> employees) {
+        if (employees.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_BATCH_SIZE + " employees per batch");
+        }
+        return employeeService.saveEmployees(employees);
+    }
+
+    // the body is read line by line and written in chunks, however large the file is
+    @PostMapping(path = "/imports", consumes = {EmployeeImporter.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public EmployeeImportResult importEmployees(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                InputStream body) throws IOException {
+        EmployeeImporter.Format format = EmployeeImporter.Format.of(contentType).orElseThrow();
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try {
+            return employeeImporter.importEmployees(body, format, charset);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping
-    public List<Employee> getAllEmployees() {
-        return employeeService.getAllEmployees();
+    public ResponseEntity<List<EmployeeDto>> getAllEmployees(@RequestParam(defaultValue = "0") long after,
+                                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<EmployeeDto> employees = employeeService.getEmployees(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = okWithETag(EmployeeETags.ofPage(employees, EmployeeETags.format(accept)));
+        if (employees.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(employees.get(pageSize - 1).getId()));
+        }
+        return response.body(employees);
+    }
+
+    // GET for the ids of a page, POST (/lookup) for more than fit in a URL
+    @GetMapping(params = "ids")
+    public ResponseEntity<EmployeeLookupResult> getEmployeesByIds(@RequestParam List<Long> ids,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_PAGE_SIZE + " ids per GET, POST larger sets to /api/employees/lookup");
+        }
+        EmployeeLookupResult result = lookup(ids);
+        return okWithETag(EmployeeETags.ofPage(result.getItems(), EmployeeETags.format(accept))).body(result);
+    }
+
+    @PostMapping("/lookup")
+    public EmployeeLookupResult lookupEmployees(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_BATCH_SIZE + " ids per lookup");
+        }
+        return lookup(ids);
+    }
+
+    @GetMapping("/search")
+    public EmployeeSearchResult searchEmployees(@RequestParam(required = false) String firstName,
+                                                @RequestParam(required = false) String lastName,
+                                                @RequestParam(required = false) String emailDomain,
+                                                @PageableDefault(size = 100, sort = "id") Pageable pageable) {
+        // only the orders an index delivers, with id last so that rows with equal sort keys keep their order
+        // from page to page. anything else would sort every match (a filesort) for each page
+        Sort sort = EmployeeSearchSorts.indexOrdered(pageable.getSort(), firstName, lastName, emailDomain)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "sort by id without filters, otherwise by the columns of a filtered index (firstName / "
+                                + "lastName,firstName / emailDomain) in one direction, an exactly matched column can be left out"));
+        int pageSize = Math.min(pageable.getPageSize(), MAX_PAGE_SIZE);
+        if ((long) pageable.getPageNumber() * pageSize > MAX_SEARCH_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + MAX_SEARCH_OFFSET + " rows can be skipped, narrow the filters instead");
+        }
+        Slice<EmployeeDto> employees = employeeService.searchEmployees(firstName, lastName, emailDomain,
+                PageRequest.of(pageable.getPageNumber(), pageSize, sort));
+        return EmployeeSearchResult.builder()
+                .items(employees.getContent())
+                .page(employees.getNumber())
+                .size(employees.getSize())
+                .hasNext(employees.hasNext())
+                .build();
+    }
+
+    @GetMapping("/suggest")
+    public List<EmployeeDto> suggestEmployees(@RequestParam("q") String query,
+                                              @RequestParam(defaultValue = DEFAULT_SUGGEST_LIMIT) int limit) {
+        return employeeService.suggestEmployees(query, Math.max(1, Math.min(limit, MAX_SUGGEST_LIMIT)));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees() {
+        StreamingResponseBody body = outputStream -> employeeService.streamAllEmployees(employee -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(employee));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // nightly export: rows go from the server-side cursor of streamAllEmployees straight into the response
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream) : outputStream;
+            try (SequenceWriter rows = CSV_WRITER.writeValues(out)) {
+                employeeService.streamAllEmployees(employee -> {
+                    try {
+                        rows.write(employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? APPLICATION_GZIP : TEXT_CSV_UTF8)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(gzip ? "employees.csv.gz" : "employees.csv")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    // server-sent events, one per change from now on, or from after Last-Event-ID when the client resumes
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(name = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return employeeChangeFeed.subscribe(lastEventId);
+    }
+
+    // without since only the token to start from: read the employees in full after taking it, then sync from it
+    @GetMapping("/delta")
+    public EmployeeDelta getDelta(@RequestParam(required = false) Long since,
+                                  @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        if (since == null) {
+            return EmployeeDelta.builder()
+                    .upserted(List.of())
+                    .deleted(List.of())
+                    .token(employeeDeltaSync.currentToken())
+                    .build();
+        }
+        return employeeDeltaSync.changesSince(since, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE,
+                        "changes since the token are no longer kept, read the employees in full again"));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long employeeId) {
+    public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable("id") long employeeId,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // from the cache when it holds the employee, so a 304 neither reads the database nor writes a body
         return employeeService.getEmployeeById(employeeId)
-                .map(ResponseEntity::ok)
+                .map(employee -> okWithETag(EmployeeETags.of(employee.getVersion(), EmployeeETags.format(accept))).body(employee))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("{id}")
     public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long employeeId,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
                                                    @RequestBody Employee employee) {
+        Optional<Long> requiredVersion = ifMatch != null ? EmployeeETags.requiredVersion(ifMatch) : Optional.empty();
         return employeeService.getEmployeeById(employeeId)
                 .map(savedEmployee -> {
+                    Employee changedEmployee = Employee.builder()
+                            .id(savedEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            // the If-Match version, else the client's, wins so that a stale edit is rejected instead of overwriting
+                            .version(requiredVersion.orElse(
+                                    employee.getVersion() != null ? employee.getVersion() : savedEmployee.getVersion()))
+                            .build();
 
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
-
-                    Employee updatedEmployee = employeeService.updateEmployee(savedEmployee);
-                    return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
+                    Employee updatedEmployee = updateIfMatch(ifMatch, () -> employeeService.updateEmployee(changedEmployee));
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    String eTag = EmployeeETags.of(updatedEmployee.getVersion(), EmployeeETags.format(accept));
+                    return (eTag != null ? response.eTag(eTag) : response).body(updatedEmployee);
                 })
-                .orElseGet(() -> ResponseEntity.notFound().build());
+                .orElseGet(() -> missing(ifMatch));
+    }
+
+    @PatchMapping("{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") long employeeId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestBody Employee employee) {
+        if (employee.getFirstName() == null && employee.getLastName() == null && employee.getEmail() == null) {
+            // would change nothing, while the ETag answered is the version a change makes
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "no field to patch");
+        }
+        Optional<Long> requiredVersion = ifMatch != null ? EmployeeETags.requiredVersion(ifMatch) : Optional.empty();
+        requiredVersion.ifPresent(employee::setVersion);
+        if (!updateIfMatch(ifMatch, () -> employeeService.patchEmployee(employeeId, employee))) {
+            return missing(ifMatch);
+        }
+        // the update increments the version it matched, otherwise the new one is unknown without reading it back.
+        // the tag is the one a GET with the same Accept returns
+        return requiredVersion
+                .map(version -> ResponseEntity.noContent()
+                        .eTag(EmployeeETags.of(version + 1, EmployeeETags.format(accept)))
+                        .<Void>build())
+                .orElseGet(() -> ResponseEntity.noContent().build());
     }
 
     @DeleteMapping("{id}")
-    public ResponseEntity<String> deleteEmployee(@PathVariable("id") long employeeId) {
+    public ResponseEntity<Void> deleteEmployee(@PathVariable("id") long employeeId) {
+        return employeeService.deleteEmployee(employeeId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping(params = "ids")
+    public EmployeeDeleteResult deleteEmployees(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "at most " + MAX_BATCH_SIZE + " ids per delete");
+        }
+        int deleted = employeeService.deleteEmployees(ids);
+        return EmployeeDeleteResult.builder()
+                .requested(ids.size())
+                .deleted(deleted)
+                .build();
+    }
+
+    private EmployeeLookupResult lookup(List<Long> ids) {
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(ids);
+        Set<Long> found = employees.stream().map(EmployeeDto::getId).collect(Collectors.toSet());
+        return EmployeeLookupResult.builder()
+                .items(employees)
+                .missing(ids.stream().distinct().filter(id -> !found.contains(id)).collect(Collectors.toList()))
+                .build();
+    }
 
-        employeeService.deleteEmployee(employeeId);
+    // revalidated on every use, a matching If-None-Match is answered with 304 before the body is written
+    private static ResponseEntity.BodyBuilder okWithETag(String eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        return eTag != null ? response.eTag(eTag) : response;
+    }
+
+    // with If-Match a stale version is a failed precondition, without it a conflict (see the handler below)
+    private static <T> T updateIfMatch(String ifMatch, Supplier<T> update) {
+        try {
+            return update.get();
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch == null) {
+                throw e;
+            }
+            // without the cause, the conflict handler would match it
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the employee");
+        }
+    }
+
+    // If-Match, even "*", needs a current employee
+    private static <T> ResponseEntity<T> missing(String ifMatch) {
+        if (ifMatch != null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the employee");
+        }
+        return ResponseEntity.notFound().build();
+    }
 
-        return new ResponseEntity<String>("Employee deleted successfully", HttpStatus.OK);
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new ResponseEntity<String>("Employee was modified by another request", HttpStatus.CONFLICT);
     }
 
 }
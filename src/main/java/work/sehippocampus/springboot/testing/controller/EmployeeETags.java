@@ -0,0 +1,97 @@
+package work.sehippocampus.springboot.testing.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+// entity tags of the employee resources, derived from the version column which every update increments (the bulk ones too)
+// and the format of the representation (JSON, Smile or CBOR, by Accept)
+final class EmployeeETags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String FORMAT_SEPARATOR = "-";
+    private static final long NO_VERSION = -1L;
+    // in the order of the message converters, which is how spring picks one when several are acceptable
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.valueOf("application/x-jackson-smile"), MediaType.APPLICATION_CBOR);
+    private static final String JSON = "";
+
+    private EmployeeETags() {
+    }
+
+    // the format the response is written in, as it goes into the tags: none for JSON, so that its tags are the bare
+    // version, else the subtype without its prefix ("smile", "cbor"). the same representation gets the same tag
+    static String format(String accept) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // rejected when the body is written
+            return JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType mediaType : acceptable) {
+            for (MediaType format : FORMATS) {
+                if (mediaType.isCompatibleWith(format)) {
+                    return format.equals(MediaType.APPLICATION_JSON) ? JSON
+                            : format.getSubtype().substring(format.getSubtype().lastIndexOf('-') + 1);
+                }
+            }
+        }
+        return JSON;
+    }
+
+    // strong, so that it can be used in If-Match. null without a version
+    static String of(Long version, String format) {
+        return version == null ? null : quote(withFormat(String.valueOf(version), format));
+    }
+
+    // a page changes when one of its rows is added, removed or updated. weak: tomcat does not compress a response
+    // with a strong tag, and a page is only ever compared for If-None-Match
+    static String ofPage(List<EmployeeDto> employees, String format) {
+        ByteBuffer idsAndVersions = ByteBuffer.allocate(employees.size() * 2 * Long.BYTES);
+        for (EmployeeDto employee : employees) {
+            idsAndVersions.putLong(employee.getId());
+            idsAndVersions.putLong(employee.getVersion() != null ? employee.getVersion() : NO_VERSION);
+        }
+        return WEAK_PREFIX + quote(withFormat(DigestUtils.md5DigestAsHex(idsAndVersions.array()), format));
+    }
+
+    // the version an If-Match header requires, empty for "*" (any current version). the tag of any format matches,
+    // they all stand for the same version
+    static Optional<Long> requiredVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (ANY.equals(tag)) {
+            return Optional.empty();
+        }
+        if (tag.contains(",")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "one entity tag in If-Match");
+        }
+        // If-Match compares strongly, a weak tag or one that is not ours never matches
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                String value = tag.substring(1, tag.length() - 1);
+                int separator = value.indexOf(FORMAT_SEPARATOR);
+                return Optional.of(Long.parseLong(separator < 0 ? value : value.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the employee");
+    }
+
+    private static String withFormat(String value, String format) {
+        return format.isEmpty() ? value : value + FORMAT_SEPARATOR + format;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
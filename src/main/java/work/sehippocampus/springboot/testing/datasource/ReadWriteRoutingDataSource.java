@@ -0,0 +1,97 @@
+package work.sehippocampus.springboot.testing.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replicas (round robin) and everything else to the primary.
+ * <p>
+ * The lookup happens when the connection is fetched, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks for
+ * a connection before the read-only flag of the transaction is visible here.
+ * <p>
+ * Between {@link #startReadYourWrites()} and {@link #stopReadYourWrites()} a thread that has written once reads
+ * from the primary from then on, so it does not miss its own changes while a replica lags behind.
+ * <p>
+ * Reads inside {@link #readFromPrimary} go to the primary as well, for results that are kept beyond the request
+ * (cached): from a lagging replica they could be rows as they were before a write of any other request.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    private static final String REPLICA_PREFIX = "replica-";
+
+    private final List<? extends DataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<boolean[]> wrote = new ThreadLocal<>();
+    // static, the callers do not know whether there are replicas (this data source is only there when there are)
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaKeys.add(REPLICA_PREFIX + i);
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    // the primary is closed by whoever owns it, the replica pools belong to this data source
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+    }
+
+    public void startReadYourWrites() {
+        wrote.set(new boolean[1]);
+    }
+
+    public void stopReadYourWrites() {
+        wrote.remove();
+    }
+
+    // the connection is chosen at the first statement of the transaction, so the read has to be its first one
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        if (PRIMARY_READS.get() != null) {
+            return read.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean[] current = wrote.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (current != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                current[0] = true;
+            }
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || PRIMARY_READS.get() != null || (current != null && current[0])) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+}
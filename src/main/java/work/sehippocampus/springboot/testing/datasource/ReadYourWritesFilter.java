@@ -0,0 +1,32 @@
+package work.sehippocampus.springboot.testing.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Scopes read-your-writes stickiness of {@link ReadWriteRoutingDataSource} to one request.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    public ReadYourWritesFilter(ReadWriteRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        routingDataSource.startReadYourWrites();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            routingDataSource.stopReadYourWrites();
+        }
+    }
+}
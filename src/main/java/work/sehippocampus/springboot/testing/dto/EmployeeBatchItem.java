@@ -0,0 +1,23 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeBatchItem {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    // position in the request body (the line number for an import)
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String message;
+}
@@ -0,0 +1,17 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeBatchResult {
+    private int created;
+
+    private int failed;
+
+    private List<EmployeeBatchItem> items;
+}
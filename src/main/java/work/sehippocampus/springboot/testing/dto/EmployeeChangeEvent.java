@@ -0,0 +1,22 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+// data of an event of GET /api/employees/changes, serialized once when the change is recorded
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+
+    private long employeeId;
+
+    // the employee after the change, null when it was deleted
+    private EmployeeDto employee;
+}
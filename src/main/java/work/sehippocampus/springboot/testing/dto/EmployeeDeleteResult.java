@@ -0,0 +1,13 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeDeleteResult {
+    private int requested;
+
+    private int deleted;
+}
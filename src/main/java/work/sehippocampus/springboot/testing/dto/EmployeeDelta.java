@@ -0,0 +1,23 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeDelta {
+    // created or updated since the token, as of their latest change in this page
+    private List<EmployeeDto> upserted;
+
+    // the tombstones: deleted since the token
+    private List<Long> deleted;
+
+    // the since of the next request
+    private long token;
+
+    // more changes can be read right away
+    private boolean hasMore;
+}
@@ -0,0 +1,20 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+// read-only projection of Employee, instantiated by JPQL constructor expressions. also the wire format of the read endpoints
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeDto {
+    private long id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeImportResult {
+    private long imported;
+
+    private long rejected;
+
+    // the first rejected rows by line number, at most EmployeeImporter.MAX_REPORTED_REJECTS of them
+    private List<EmployeeBatchItem> rejects;
+}
@@ -0,0 +1,23 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+// state of an employee accepted with "Prefer: respond-async", kept for a while after it is written
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeIngestStatus {
+
+    public enum Status {
+        QUEUED, CREATED, DUPLICATE, INVALID, FAILED
+    }
+
+    private String trackingId;
+
+    private Status status;
+
+    private Long id;
+
+    private String message;
+}
@@ -0,0 +1,16 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeLookupResult {
+    // in the order of the requested ids
+    private List<EmployeeDto> items;
+
+    private List<Long> missing;
+}
@@ -0,0 +1,19 @@
+package work.sehippocampus.springboot.testing.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeSearchResult {
+    private List<EmployeeDto> items;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,53 @@
+package work.sehippocampus.springboot.testing.importer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// one-off command: java -jar spring-boot-testing.jar --employee.import.file=employees.csv --spring.main.web-application-type=none
+@Slf4j
+@Component
+@ConditionalOnProperty("employee.import.file")
+public class EmployeeImportRunner implements ApplicationRunner {
+
+    private EmployeeImporter employeeImporter;
+    private ConfigurableApplicationContext context;
+    private Path file;
+
+    public EmployeeImportRunner(EmployeeImporter employeeImporter, ConfigurableApplicationContext context,
+                                @Value("${employee.import.file}") Path file) {
+        this.employeeImporter = employeeImporter;
+        this.context = context;
+        this.file = file;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        EmployeeImporter.Format format = EmployeeImporter.Format.ofFileName(file.getFileName().toString())
+                .orElseThrow(() -> new IllegalArgumentException(file + " is neither .csv nor .ndjson/.jsonl"));
+        EmployeeImportResult result;
+        try (InputStream in = Files.newInputStream(file)) {
+            result = employeeImporter.importEmployees(in, format, StandardCharsets.UTF_8);
+        }
+        for (EmployeeBatchItem reject : result.getRejects()) {
+            log.warn("{}:{} {} {}", file, reject.getIndex(), reject.getStatus(), reject.getMessage());
+        }
+        if (result.getRejected() > result.getRejects().size()) {
+            log.warn("{} more rejected rows", result.getRejected() - result.getRejects().size());
+        }
+        // the write-behind thread would keep the JVM running
+        System.exit(SpringApplication.exit(context));
+    }
+}
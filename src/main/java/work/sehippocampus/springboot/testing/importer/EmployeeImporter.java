@@ -0,0 +1,244 @@
+package work.sehippocampus.springboot.testing.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports employees from a CSV or NDJSON stream with one employee per line.
+ * <p>
+ * Lines are parsed as they are read and written in chunks through {@link EmployeeService#saveEmployees}: one
+ * duplicate-email lookup and one batched insert per chunk, each chunk in a transaction of its own. So the persistence
+ * context is discarded after every chunk, and a chunk sees the emails imported by the ones before it. Memory is bounded
+ * by the chunk size and {@link #MAX_REPORTED_REJECTS}, not by the size of the file.
+ * <p>
+ * A CSV file starts with a header naming the columns, firstName, lastName and email are required and others
+ * (the id and version of an export) are ignored. A quoted value cannot span lines.
+ */
+@Slf4j
+@Component
+public class EmployeeImporter {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final int MAX_REPORTED_REJECTS = 1000;
+    static final String METRIC_NAME = "employee.import.rows";
+    private static final Set<String> REQUIRED_CSV_COLUMNS = Set.of("firstName", "lastName", "email");
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_LOG_LINES = 100_000;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    public enum Format {
+        CSV(MediaType.valueOf(TEXT_CSV_VALUE), ".csv"),
+        NDJSON(MediaType.APPLICATION_NDJSON, ".ndjson", ".jsonl");
+
+        private final MediaType mediaType;
+        private final List<String> extensions;
+
+        Format(MediaType mediaType, String... extensions) {
+            this.mediaType = mediaType;
+            this.extensions = List.of(extensions);
+        }
+
+        public static Optional<Format> of(MediaType contentType) {
+            return Arrays.stream(values())
+                    .filter(format -> format.mediaType.equalsTypeAndSubtype(contentType))
+                    .findFirst();
+        }
+
+        public static Optional<Format> ofFileName(String fileName) {
+            String lowerCase = fileName.toLowerCase(Locale.ROOT);
+            return Arrays.stream(values())
+                    .filter(format -> format.extensions.stream().anyMatch(lowerCase::endsWith))
+                    .findFirst();
+        }
+    }
+
+    private final EmployeeService employeeService;
+    private final ObjectReader ndjsonReader;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final int chunkSize;
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    public EmployeeImporter(EmployeeService employeeService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${employee.import.chunk-size:1000}") int chunkSize) {
+        this.employeeService = employeeService;
+        this.ndjsonReader = objectMapper.readerFor(Employee.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.chunkSize = chunkSize;
+        this.importedRows = Counter.builder(METRIC_NAME)
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder(METRIC_NAME)
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the CSV header lacks a required column, nothing is imported then
+     */
+    public EmployeeImportResult importEmployees(InputStream in, Format format, Charset charset) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset), READ_BUFFER_SIZE);
+        // the CSV reader depends on the header
+        ObjectReader rowReader = format == Format.NDJSON ? ndjsonReader : null;
+        Progress progress = new Progress();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        long lineNumber = 0;
+        long nextProgressLog = PROGRESS_LOG_LINES;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (rowReader == null) {
+                rowReader = csvRowReader(line);
+                continue;
+            }
+            chunk.add(parse(rowReader, lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                write(chunk, progress);
+                chunk.clear();
+                if (lineNumber >= nextProgressLog) {
+                    log.info("employee import: {} lines read, {} imported, {} rejected",
+                            lineNumber, progress.imported, progress.rejected);
+                    nextProgressLog += PROGRESS_LOG_LINES;
+                }
+            }
+        }
+        write(chunk, progress);
+
+        log.info("employee import finished: {} lines read, {} imported, {} rejected",
+                lineNumber, progress.imported, progress.rejected);
+        return EmployeeImportResult.builder()
+                .imported(progress.imported)
+                .rejected(progress.rejected)
+                .rejects(progress.rejects)
+                .build();
+    }
+
+    private ObjectReader csvRowReader(String header) throws IOException {
+        String[] columns = csvMapper.readerFor(String[].class).readValue(header);
+        CsvSchema.Builder schema = CsvSchema.builder();
+        Set<String> missing = new TreeSet<>(REQUIRED_CSV_COLUMNS);
+        for (String column : columns) {
+            schema.addColumn(column.trim());
+            missing.remove(column.trim());
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("the CSV header has no column " + String.join(", ", missing));
+        }
+        return csvMapper.readerFor(Employee.class)
+                .with(schema.build())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private static Row parse(ObjectReader rowReader, long lineNumber, String line) {
+        try {
+            Employee employee = rowReader.readValue(line);
+            return employee != null ? new Row(lineNumber, employee, null) : new Row(lineNumber, null, "empty row");
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "unreadable row: " + e.getOriginalMessage());
+        }
+    }
+
+    private void write(List<Row> chunk, Progress progress) {
+        List<Row> parsed = chunk.stream()
+                .filter(row -> row.employee != null)
+                .collect(Collectors.toList());
+        Iterator<EmployeeBatchItem> items = parsed.isEmpty()
+                ? Collections.emptyIterator()
+                : save(parsed).getItems().iterator();
+        long importedBefore = progress.imported;
+        long rejectedBefore = progress.rejected;
+
+        // items are in the order of the parsed rows, so the rejects stay in line order
+        for (Row row : chunk) {
+            if (row.employee == null) {
+                progress.reject(row.lineNumber, EmployeeBatchItem.Status.INVALID, row.error);
+                continue;
+            }
+            EmployeeBatchItem item = items.next();
+            if (item.getStatus() == EmployeeBatchItem.Status.CREATED) {
+                progress.imported++;
+            } else {
+                progress.reject(row.lineNumber, item.getStatus(), item.getMessage());
+            }
+        }
+        importedRows.increment(progress.imported - importedBefore);
+        rejectedRows.increment(progress.rejected - rejectedBefore);
+    }
+
+    // an email taken between the lookup and the insert (a concurrent create) comes back as DUPLICATE
+    private EmployeeBatchResult save(List<Row> rows) {
+        return employeeService.saveEmployees(copies(rows));
+    }
+
+    // fresh instances, without the id or version of the file
+    private static List<Employee> copies(List<Row> rows) {
+        return rows.stream()
+                .map(row -> Employee.builder()
+                        .firstName(row.employee.getFirstName())
+                        .lastName(row.employee.getLastName())
+                        .email(row.employee.getEmail())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static class Row {
+        final long lineNumber;
+        // null when the line could not be parsed
+        final Employee employee;
+        final String error;
+
+        Row(long lineNumber, Employee employee, String error) {
+            this.lineNumber = lineNumber;
+            this.employee = employee;
+            this.error = error;
+        }
+    }
+
+    private static class Progress {
+        long imported;
+        long rejected;
+        final List<EmployeeBatchItem> rejects = new ArrayList<>();
+
+        void reject(long lineNumber, EmployeeBatchItem.Status status, String message) {
+            rejected++;
+            if (rejects.size() < MAX_REPORTED_REJECTS) {
+                rejects.add(EmployeeBatchItem.builder()
+                        .index((int) lineNumber)
+                        .status(status)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
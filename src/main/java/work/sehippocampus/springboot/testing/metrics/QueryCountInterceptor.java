@@ -0,0 +1,67 @@
+package work.sehippocampus.springboot.testing.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the number of SQL statements each request executed, tagged like http.server.requests.
+ * <p>
+ * Asynchronous requests (streams, server-sent events, respond-async) are not recorded: their statements run on
+ * other threads, after the dispatch that was counted, so their count would be too low.
+ */
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String METRIC_NAME = "http.server.requests.queries";
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry meterRegistry;
+    // by method and uri, so that a request looks its summary up instead of building one
+    private final Map<List<String>, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public QueryCountInterceptor(QueryCounter queryCounter, MeterRegistry meterRegistry) {
+        this.queryCounter = queryCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the dispatch that completes an asynchronous request is not counted either
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            queryCounter.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the rest of the work runs on another thread, so the count would be incomplete
+        queryCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return;
+        }
+        int queries = queryCounter.stop();
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        summary(request.getMethod(), uri == null ? "UNKNOWN" : uri.toString()).record(queries);
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        return summaries.computeIfAbsent(List.of(method, uri), key -> DistributionSummary.builder(METRIC_NAME)
+                .baseUnit("queries")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,27 @@
+package work.sehippocampus.springboot.testing.metrics;
+
+/**
+ * Counts the SQL statements executed on the current thread between {@link #start()} and {@link #stop()}, as
+ * reported by {@link QueryCountingDataSource}.
+ */
+public class QueryCounter {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    public int stop() {
+        int[] current = count.get();
+        count.remove();
+        return current == null ? 0 : current[0];
+    }
+
+    void increment() {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+    }
+}
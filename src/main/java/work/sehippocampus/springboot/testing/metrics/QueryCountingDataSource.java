@@ -0,0 +1,70 @@
+package work.sehippocampus.springboot.testing.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reports each statement executed through its connections to a {@link QueryCounter}: those of hibernate and those
+ * of JdbcTemplate (the change outbox among them) alike. A JDBC batch counts once, it is one round trip.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private final QueryCounter queryCounter;
+
+    public QueryCountingDataSource(DataSource targetDataSource, QueryCounter queryCounter) {
+        super(targetDataSource);
+        this.queryCounter = queryCounter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    // the statements it creates (Statement, PreparedStatement or CallableStatement) count their executions
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    return result instanceof Statement ? counting((Statement) result, method.getReturnType()) : result;
+                });
+    }
+
+    private Object counting(Statement statement, Class<?> type) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    // a failed execution went to the database as well
+                    if (method.getName().startsWith("execute")) {
+                        queryCounter.increment();
+                    }
+                    return invoke(proxy, statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // identity of the proxy, so that it is found again where it is held (the transaction's connection holder)
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
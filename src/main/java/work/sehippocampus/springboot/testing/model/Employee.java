@@ -1,6 +1,15 @@
 package work.sehippocampus.springboot.testing.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchAnalysisConfigurer;
 
 import javax.persistence.*;
 
@@ -10,18 +19,49 @@ import javax.persistence.*;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "employees")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employee")
+// suggestions are projected from the index, so the fields are stored there as well (see EmployeeSearchIndex)
+@Indexed(index = "employees")
+@Table(name = "employees",
+        uniqueConstraints = @UniqueConstraint(name = Employee.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"),
+        indexes = {@Index(name = "idx_employees_last_name_first_name", columnList = "last_name, first_name"),
+                @Index(name = "idx_employees_first_name", columnList = "first_name"),
+                @Index(name = "idx_employees_email_domain", columnList = "email_domain")})
 public class Employee {
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+    // varchar(255) of first_name, last_name and email
+    public static final int MAX_FIELD_LENGTH = 255;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (a table on MySQL) so that inserts can be JDBC batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "first_name", nullable = false)
+    @FullTextField(analyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE,
+            searchAnalyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE_QUERY, projectable = Projectable.YES)
     private String firstName;
 
     @Column(name = "last_name", nullable = false)
+    @FullTextField(analyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE,
+            searchAnalyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE_QUERY, projectable = Projectable.YES)
     private String lastName;
 
     @Column(nullable = false)
+    @FullTextField(analyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE,
+            searchAnalyzer = EmployeeSearchAnalysisConfigurer.AUTOCOMPLETE_QUERY, projectable = Projectable.YES)
     private String email;
+
+    // generated column (substring of email after '@'), only read by search queries and not part of the API
+    @JsonIgnore
+    @Column(name = "email_domain", insertable = false, updatable = false)
+    private String emailDomain;
+
+    // optimistic lock, null until the first insert
+    @Version
+    @GenericField(projectable = Projectable.YES)
+    private Long version;
 }
@@ -1,24 +1,81 @@
 package work.sehippocampus.springboot.testing.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
 import work.sehippocampus.springboot.testing.model.Employee;
 
-import java.lang.annotation.Native;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+    String QUERY_CACHE_REGION = "employee-queries";
+    String SELECT_EMPLOYEE_DTO = "select new work.sehippocampus.springboot.testing.dto.EmployeeDto(" +
+            "e.id, e.firstName, e.lastName, e.email, e.version) from Employee e";
 
     // query method
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
     Optional<Employee> findByEmail(String email);
 
+    // duplicate check for a whole batch in one query. matches as the unique index does, without case on MySQL
+    @Query("select e.email from Employee e where e.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // DELETE ... WHERE id = ? without loading the entity first (deleteById does a SELECT)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Employee e where e.id = :id")
+    int deleteDirectlyById(@Param("id") long id);
+
+    // many ids in one statement
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Employee e where e.id in :ids")
+    int deleteDirectlyByIdIn(@Param("ids") Collection<Long> ids);
+
+    // read path of the API: DTOs straight from the result set, nothing enters the persistence context
+    @Query(SELECT_EMPLOYEE_DTO + " where e.id = :id")
+    Optional<EmployeeDto> findDtoById(@Param("id") long id);
+
+    // in no particular order, the ones that are there
+    @Query(SELECT_EMPLOYEE_DTO + " where e.id in :ids")
+    List<EmployeeDto> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // keyset pagination (id > after order by id limit n)
+    @Query(SELECT_EMPLOYEE_DTO + " where e.id > :after order by e.id")
+    List<EmployeeDto> findDtoByIdGreaterThan(@Param("after") long after, Pageable pageable);
+
+    // streaming query (server side cursor, needs an open transaction)
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_EMPLOYEE_DTO + " order by e.id")
+    Stream<EmployeeDto> streamAllDto();
+
     // JPQL custom query method
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
     @Query("select e from Employee e where e.firstName = :firstName and e.lastName = :lastName")
-    Employee findByJPQL(@Param("firstName")String firstName, @Param("lastName") String lastName);
+    List<Employee> findByJPQL(@Param("firstName")String firstName, @Param("lastName") String lastName);
+
+    // JPQL DTO projection (no managed entities)
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query(SELECT_EMPLOYEE_DTO + " where e.firstName = :firstName and e.lastName = :lastName")
+    List<EmployeeDto> findDtoByJPQL(@Param("firstName")String firstName, @Param("lastName") String lastName);
 
     // native query method
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
     @Query( value = "select * from employees e where e.first_name = :firstName and e.last_name = :lastName",
             nativeQuery = true)
-    Employee findByNativeSQL(@Param("firstName")String firstName, @Param("lastName")String lastName);
+    List<Employee> findByNativeSQL(@Param("firstName")String firstName, @Param("lastName")String lastName);
 }
@@ -0,0 +1,17 @@
+package work.sehippocampus.springboot.testing.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+public interface EmployeeRepositoryCustom {
+
+    // sets only the non null fields in one UPDATE, returns the affected row count (0 if missing or stale).
+    // with no field set nothing is written, the count is of the rows that would have matched
+    int updateNonNullFields(long id, String firstName, String lastName, String email, Long expectedVersion);
+
+    // DTO projection of the matching employees, one row past the page tells whether there is a next one (no count query)
+    Slice<EmployeeDto> searchDtos(Specification<Employee> specification, Pageable pageable);
+}
@@ -0,0 +1,92 @@
+package work.sehippocampus.springboot.testing.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateNonNullFields(long id, String firstName, String lastName, String email, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (firstName == null && lastName == null && email == null) {
+            // nothing to set: no write and no version bump, only whether the row would have matched
+            CriteriaQuery<Long> count = cb.createQuery(Long.class);
+            Root<Employee> employee = count.from(Employee.class);
+            count.select(cb.count(employee)).where(matching(cb, employee, id, expectedVersion));
+            return entityManager.createQuery(count).getSingleResult().intValue();
+        }
+
+        CriteriaUpdate<Employee> update = cb.createCriteriaUpdate(Employee.class);
+        Root<Employee> employee = update.from(Employee.class);
+
+        if (firstName != null) {
+            update.set(employee.<String>get("firstName"), firstName);
+        }
+        if (lastName != null) {
+            update.set(employee.<String>get("lastName"), lastName);
+        }
+        if (email != null) {
+            update.set(employee.<String>get("email"), email);
+        }
+        update.set(employee.<Long>get("version"), cb.sum(employee.<Long>get("version"), 1L));
+
+        update.where(matching(cb, employee, id, expectedVersion));
+
+        // bulk updates bypass the persistence context (like @Modifying with flushAutomatically/clearAutomatically),
+        // hibernate evicts the employee cache regions itself
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    private static Predicate matching(CriteriaBuilder cb, Root<Employee> employee, long id, Long expectedVersion) {
+        Predicate where = cb.equal(employee.get("id"), id);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(employee.get("version"), expectedVersion));
+        }
+        return where;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<EmployeeDto> searchDtos(Specification<Employee> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EmployeeDto> query = cb.createQuery(EmployeeDto.class);
+        Root<Employee> employee = query.from(Employee.class);
+
+        query.select(cb.construct(EmployeeDto.class, employee.get("id"), employee.get("firstName"),
+                employee.get("lastName"), employee.get("email"), employee.get("version")));
+        Predicate where = specification != null ? specification.toPredicate(employee, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), employee, cb));
+
+        List<EmployeeDto> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+}
@@ -0,0 +1,77 @@
+package work.sehippocampus.springboot.testing.repository;
+
+import org.springframework.data.domain.Sort;
+import work.sehippocampus.springboot.testing.repository.EmployeeSpecifications.Match;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// the search orders an index delivers, so that a page is read in order instead of sorting every match.
+// the index has to be the one of a filter (its leading column is filtered), the columns compared equal to a value
+// drop out of the order, and the rest has to be the order of the index. InnoDB ends every secondary index with the
+// primary key, which is also the tiebreaker of the sort. an index is read in one direction, so one for the whole sort
+public final class EmployeeSearchSorts {
+    private static final String ID = "id";
+    // the properties of the search indexes of Employee in index order
+    private static final List<List<String>> INDEXES = List.of(
+            List.of("firstName", ID),
+            List.of("lastName", "firstName", ID),
+            List.of("emailDomain", ID));
+
+    private EmployeeSearchSorts() {
+    }
+
+    // the sort with the id tiebreaker, empty when no index delivers it for these filters
+    public static Optional<Sort> indexOrdered(Sort sort, String firstName, String lastName, String emailDomain) {
+        Map<String, Match> filters = new HashMap<>();
+        putFilter(filters, "firstName", firstName);
+        putFilter(filters, "lastName", lastName);
+        putFilter(filters, "emailDomain", emailDomain);
+
+        Sort.Direction direction = sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.ASC);
+        List<String> properties = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (order.getDirection() != direction || order.isIgnoreCase()) {
+                return Optional.empty();
+            }
+            properties.add(order.getProperty());
+            // unique, whatever follows does not change the order
+            if (order.getProperty().equals(ID)) {
+                break;
+            }
+        }
+        if (!properties.contains(ID)) {
+            properties.add(ID);
+        }
+
+        if (filters.isEmpty() ? properties.equals(List.of(ID)) : INDEXES.stream()
+                .anyMatch(index -> isIndexOrdered(index, filters, properties))) {
+            return Optional.of(Sort.by(direction, properties.toArray(String[]::new)));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isIndexOrdered(List<String> index, Map<String, Match> filters, List<String> properties) {
+        if (!filters.containsKey(index.get(0))) {
+            return false;
+        }
+        int first = 0;
+        while (filters.get(index.get(first)) == Match.EXACT) {
+            first++;
+        }
+        List<String> order = new ArrayList<>(properties);
+        order.removeIf(property -> filters.get(property) == Match.EXACT);
+        List<String> indexOrder = index.subList(first, index.size());
+        return order.size() <= indexOrder.size() && indexOrder.subList(0, order.size()).equals(order);
+    }
+
+    private static void putFilter(Map<String, Match> filters, String property, String filter) {
+        Match match = EmployeeSpecifications.match(filter);
+        if (match != Match.NONE) {
+            filters.put(property, match);
+        }
+    }
+}
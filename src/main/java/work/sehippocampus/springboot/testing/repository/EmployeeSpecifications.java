@@ -0,0 +1,70 @@
+package work.sehippocampus.springboot.testing.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+// search filters, each one on an indexed column: "value" matches exactly and "value*" by prefix.
+// there is deliberately no contains match, a leading wildcard cannot use an index
+public final class EmployeeSpecifications {
+    public static final String PREFIX_WILDCARD = "*";
+
+    // '!' rather than '\', which MySQL also treats as an escape inside string literals
+    private static final char LIKE_ESCAPE = '!';
+
+    private EmployeeSpecifications() {
+    }
+
+    public static Specification<Employee> firstName(String filter) {
+        return matches("firstName", filter);
+    }
+
+    public static Specification<Employee> lastName(String filter) {
+        return matches("lastName", filter);
+    }
+
+    public static Specification<Employee> emailDomain(String filter) {
+        return matches("emailDomain", filter);
+    }
+
+    public enum Match {
+        // no restriction: a blank filter or a lone wildcard
+        NONE,
+        EXACT,
+        PREFIX
+    }
+
+    public static Match match(String filter) {
+        if (!StringUtils.hasText(filter)) {
+            return Match.NONE;
+        }
+        if (!filter.endsWith(PREFIX_WILDCARD)) {
+            return Match.EXACT;
+        }
+        return filter.length() > PREFIX_WILDCARD.length() ? Match.PREFIX : Match.NONE;
+    }
+
+    // null for Match.NONE
+    private static Specification<Employee> matches(String attribute, String filter) {
+        switch (match(filter)) {
+            case EXACT:
+                return (root, query, cb) -> cb.equal(root.get(attribute), filter);
+            case PREFIX:
+                String prefix = filter.substring(0, filter.length() - PREFIX_WILDCARD.length());
+                return (root, query, cb) -> cb.like(root.get(attribute), escapeLike(prefix) + "%", LIKE_ESCAPE);
+            default:
+                return null;
+        }
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
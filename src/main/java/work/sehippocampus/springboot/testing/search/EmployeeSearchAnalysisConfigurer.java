@@ -0,0 +1,42 @@
+package work.sehippocampus.springboot.testing.search;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.TruncateTokenFilterFactory;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
+import org.apache.lucene.analysis.pattern.PatternTokenizerFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+// referenced from hibernate.search.backend.analysis.configurer in application.properties
+public class EmployeeSearchAnalysisConfigurer implements LuceneAnalysisConfigurer {
+    // indexes every prefix of every word, so a type-ahead lookup is a single term query
+    public static final String AUTOCOMPLETE = "autocomplete";
+    // the same words without the prefixes
+    public static final String AUTOCOMPLETE_QUERY = "autocomplete_query";
+
+    // a single character prefix would match most of the index
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_LENGTH = 20;
+
+    // names and emails split on anything that is not a letter or a digit ("taro.yamada@example.com" is 4 words)
+    private static final String WORD_SEPARATOR = "[^\\p{L}\\p{N}]+";
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(AUTOCOMPLETE).custom()
+                .tokenizer(PatternTokenizerFactory.class).param("pattern", WORD_SEPARATOR)
+                .tokenFilter(LowerCaseFilterFactory.class)
+                .tokenFilter(ASCIIFoldingFilterFactory.class)
+                .tokenFilter(EdgeNGramFilterFactory.class)
+                .param("minGramSize", String.valueOf(MIN_PREFIX_LENGTH))
+                .param("maxGramSize", String.valueOf(MAX_PREFIX_LENGTH));
+
+        context.analyzer(AUTOCOMPLETE_QUERY).custom()
+                .tokenizer(PatternTokenizerFactory.class).param("pattern", WORD_SEPARATOR)
+                .tokenFilter(LowerCaseFilterFactory.class)
+                .tokenFilter(ASCIIFoldingFilterFactory.class)
+                // longer words are indexed by their first 20 characters only
+                .tokenFilter(TruncateTokenFilterFactory.class).param("prefixLength", String.valueOf(MAX_PREFIX_LENGTH));
+    }
+}
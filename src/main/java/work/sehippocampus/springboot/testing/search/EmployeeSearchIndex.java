@@ -0,0 +1,115 @@
+package work.sehippocampus.springboot.testing.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.engine.search.predicate.dsl.BooleanPredicateClausesStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lucene index over employee names and emails (hibernate search, see the search settings in application.properties).
+ * Entity inserts, updates and deletes through hibernate are indexed automatically when their transaction commits,
+ * the methods here cover what hibernate search cannot see.
+ */
+@Slf4j
+@Component
+public class EmployeeSearchIndex {
+    private static final String[] SUGGEST_FIELDS = {"firstName", "lastName", "email"};
+    private static final int MAX_QUERY_WORDS = 5;
+    private static final String CACHE_RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+
+    private static final int LOADING_THREADS = 4;
+    private static final int LOADING_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    public EmployeeSearchIndex(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Every word of the query has to be the beginning of a word in the first name, last name or email.
+     * Hits are not ranked and are read from the index alone, the database is not queried. Needs a transaction.
+     */
+    public List<EmployeeDto> suggest(String query, int limit) {
+        List<String> words = Arrays.stream(query.trim().split("\\s+"))
+                .filter(word -> word.length() >= EmployeeSearchAnalysisConfigurer.MIN_PREFIX_LENGTH)
+                .limit(MAX_QUERY_WORDS)
+                .collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return Search.session(entityManager).search(Employee.class)
+                .select(f -> f.composite(fields -> new EmployeeDto((Long) fields.get(0), (String) fields.get(1),
+                                (String) fields.get(2), (String) fields.get(3), (Long) fields.get(4)),
+                        f.id(Long.class),
+                        f.field("firstName", String.class),
+                        f.field("lastName", String.class),
+                        f.field("email", String.class),
+                        f.field("version", Long.class)))
+                .where(f -> allWordsMatch(f, words))
+                // hits past the limit are not counted, an exact total would visit every match
+                .totalHitCountThreshold(limit)
+                .fetchHits(limit);
+    }
+
+    private static BooleanPredicateClausesStep<?> allWordsMatch(SearchPredicateFactory f, List<String> words) {
+        BooleanPredicateClausesStep<?> bool = f.bool();
+        for (String word : words) {
+            bool.must(f.match().fields(SUGGEST_FIELDS).matching(word));
+        }
+        // with relevance scores (or a score per field) a prefix shared by most employees has to score them all,
+        // with one constant score the search stops after the first hits, which come in index order
+        bool.constantScore();
+        return bool;
+    }
+
+    // for bulk JPQL updates, which bypass the entity events. applied when the caller's transaction commits
+    public void reindex(long id) {
+        // the second-level cache still has the row as it was before the update until the transaction completes
+        Employee employee = entityManager.find(Employee.class, id,
+                Map.of(CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS));
+        if (employee != null) {
+            Search.session(entityManager).indexingPlan().addOrUpdate(employee);
+        }
+    }
+
+    // for bulk JPQL deletes, which bypass the entity events. applied when the caller's transaction commits
+    public void purge(Collection<Long> ids) {
+        SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+        ids.forEach(id -> indexingPlan.purge(Employee.class, id, null));
+    }
+
+    /**
+     * Drops the index and rebuilds it from the employees table, for a new or lost index directory and for
+     * rows written around hibernate (SQL scripts, the reactive application). Suggestions are incomplete until it returns.
+     */
+    public void reindexAll() throws InterruptedException {
+        long start = System.nanoTime();
+        Search.mapping(entityManagerFactory).scope(Employee.class).massIndexer()
+                .threadsToLoadObjects(LOADING_THREADS)
+                .batchSizeToLoadObjects(LOADING_BATCH_SIZE)
+                // a cursor fetch with useCursorFetch=true on MySQL instead of reading all ids into memory
+                .idFetchSize(LOADING_BATCH_SIZE)
+                .startAndWait();
+        log.info("employee search index rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,29 @@
+package work.sehippocampus.springboot.testing.search;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+// one-off command: java -jar spring-boot-testing.jar --employee.search.reindex=true --spring.main.web-application-type=none
+@Component
+@ConditionalOnProperty("employee.search.reindex")
+public class EmployeeSearchReindexRunner implements ApplicationRunner {
+
+    private EmployeeSearchIndex employeeSearchIndex;
+    private ConfigurableApplicationContext context;
+
+    public EmployeeSearchReindexRunner(EmployeeSearchIndex employeeSearchIndex, ConfigurableApplicationContext context) {
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        employeeSearchIndex.reindexAll();
+        // the write-behind thread would keep the JVM running
+        System.exit(SpringApplication.exit(context));
+    }
+}
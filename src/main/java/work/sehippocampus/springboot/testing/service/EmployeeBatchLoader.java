@@ -0,0 +1,174 @@
+package work.sehippocampus.springboot.testing.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.datasource.ReadWriteRoutingDataSource;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads employees by id for many concurrent callers with one query per batch, in the manner of a DataLoader: the ids
+ * asked for within a short window of the first one are loaded together. {@link EmployeeService#getEmployeeById} reads
+ * its cache misses through it.
+ * <p>
+ * The loads are read by a single background thread, a daemon started with the first load, so an application that never
+ * loads through it runs no thread for it. While a batch is being loaded the next one collects, so under load the batches
+ * grow instead of the queries multiplying. A caller alone waits up to the window longer than for a query of its own.
+ * The reads run outside the caller's transaction, on the primary.
+ */
+@Slf4j
+@Component
+public class EmployeeBatchLoader {
+
+    static final String METRIC_PREFIX = "employee.loader";
+    private static final long POLL_MILLIS = 100;
+
+    private final EmployeeRepository employeeRepository;
+    private final BlockingQueue<Load> queue = new LinkedBlockingQueue<>();
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSizes;
+
+    // guarded by this, like the enqueueing of a load: none is added once the loader thread may have drained the queue
+    private boolean stopped;
+    private Thread loader;
+
+    public EmployeeBatchLoader(EmployeeRepository employeeRepository, MeterRegistry meterRegistry,
+                               @Value("${employee.loader.window:2ms}") Duration window,
+                               @Value("${employee.loader.max-batch-size:100}") int maxBatchSize) {
+        this.employeeRepository = employeeRepository;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchSizes = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                .baseUnit("employees")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread started;
+        synchronized (this) {
+            stopped = true;
+            started = loader;
+        }
+        // the loads already asked for are still answered
+        if (started != null) {
+            started.join();
+        }
+    }
+
+    public CompletableFuture<Optional<EmployeeDto>> load(long id) {
+        Load load = new Load(id, new CompletableFuture<>());
+        synchronized (this) {
+            if (stopped) {
+                return CompletableFuture.failedFuture(stoppedException());
+            }
+            if (loader == null) {
+                loader = new Thread(this::run, "employee-batch-loader");
+                loader.setDaemon(true);
+                loader.start();
+            }
+            queue.add(load);
+        }
+        return load.getResult();
+    }
+
+    // the blocking form, for callers that run on threads of their own (one per request)
+    public Optional<EmployeeDto> getEmployeeById(long id) {
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private void run() {
+        List<Load> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!isStopped() || !queue.isEmpty()) {
+                Load first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, System.nanoTime() + window.toNanos());
+                load(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // stopping, so that no load is queued for a thread that is gone
+            synchronized (this) {
+                stopped = true;
+            }
+        } finally {
+            // nothing is left but after an interrupt, and then no caller must wait for an answer forever
+            queue.drainTo(batch);
+            batch.forEach(load -> load.getResult().completeExceptionally(stoppedException()));
+        }
+    }
+
+    private synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    private static IllegalStateException stoppedException() {
+        return new IllegalStateException("the employee loader is stopped");
+    }
+
+    // whatever comes in until the window after the first load closes, or the batch is full
+    private void collect(List<Load> batch, long deadline) throws InterruptedException {
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            Load next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void load(List<Load> batch) {
+        batchSizes.record(batch.size());
+        try {
+            // from the primary, what is read here is cached (see EmployeeServiceImpl#getEmployeeById)
+            Map<Long, EmployeeDto> found = ReadWriteRoutingDataSource.readFromPrimary(() ->
+                            employeeRepository.findDtoByIdIn(batch.stream().map(Load::getId).collect(Collectors.toSet())))
+                    .stream()
+                    .collect(Collectors.toMap(EmployeeDto::getId, Function.identity()));
+            batch.forEach(load -> load.getResult().complete(Optional.ofNullable(found.get(load.getId()))));
+        } catch (RuntimeException e) {
+            log.warn("batch load of {} employees failed", batch.size(), e);
+            batch.forEach(load -> load.getResult().completeExceptionally(e));
+        }
+    }
+
+    @lombok.Value
+    static class Load {
+        long id;
+        CompletableFuture<Optional<EmployeeDto>> result;
+    }
+}
@@ -1,18 +1,43 @@
 package work.sehippocampus.springboot.testing.service;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
 import work.sehippocampus.springboot.testing.model.Employee;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
     Employee saveEmployee(Employee employee);
 
+    EmployeeBatchResult saveEmployees(List<Employee> employees);
+
     List<Employee> getAllEmployees();
 
-    Optional<Employee> getEmployeeById(long id);
+    List<EmployeeDto> getEmployees(long after, int limit);
+
+    // filters are exact, or prefix with a trailing "*", blank ones are ignored
+    Slice<EmployeeDto> searchEmployees(String firstName, String lastName, String emailDomain, Pageable pageable);
+
+    // type-ahead: every word of the query is a prefix of a word in the name or email, best matches first
+    List<EmployeeDto> suggestEmployees(String query, int limit);
+
+    void streamAllEmployees(Consumer<EmployeeDto> action);
+
+    Optional<EmployeeDto> getEmployeeById(long id);
+
+    // in the order of the ids, each once, without the ones that do not exist
+    List<EmployeeDto> getEmployeesByIds(Collection<Long> ids);
 
     Employee updateEmployee(Employee updatedEmployee);
 
-    void deleteEmployee(long id);
+    boolean patchEmployee(long id, Employee changes);
+
+    boolean deleteEmployee(long id);
+
+    int deleteEmployees(Collection<Long> ids);
 }
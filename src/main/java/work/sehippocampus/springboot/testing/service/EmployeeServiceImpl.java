@@ -1,54 +1,366 @@
 package work.sehippocampus.springboot.testing.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import work.sehippocampus.springboot.testing.changes.EmployeeChangeOutbox;
+import work.sehippocampus.springboot.testing.datasource.ReadWriteRoutingDataSource;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
 import work.sehippocampus.springboot.testing.exception.ResourceNotFoundException;
 import work.sehippocampus.springboot.testing.model.Employee;
 import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.repository.EmployeeSpecifications;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchIndex;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@CacheConfig(cacheNames = "employees")
 public class EmployeeServiceImpl implements EmployeeService {
 
+    static final String METRIC_NAME = "employee.service";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    // ids per IN list, a longer one is a large statement to parse and plan for a few more rows
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    private EmployeeChangeOutbox employeeChangeOutbox;
+
+    private EmployeeBatchLoader employeeBatchLoader;
+
+    private TransactionOperations transactionOperations;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EmployeeSearchIndex employeeSearchIndex,
+                               EmployeeChangeOutbox employeeChangeOutbox, EmployeeBatchLoader employeeBatchLoader,
+                               TransactionOperations transactionOperations) {
         this.employeeRepository = employeeRepository;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.employeeChangeOutbox = employeeChangeOutbox;
+        this.employeeBatchLoader = employeeBatchLoader;
+        this.transactionOperations = transactionOperations;
     }
 
     @Override
+    @Timed(METRIC_NAME)
+    @Transactional
     public Employee saveEmployee(Employee employee) {
 
-        Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
-        if(savedEmployee.isPresent()) {
-            throw new ResourceNotFoundException("Employee already exist with given email:" + employee.getEmail());
+        // the unique index on email is the duplicate check, so a create is a single insert
+        Employee saved;
+        try {
+            saved = employeeRepository.saveAndFlush(employee);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateEmail(e, employee.getEmail());
+        }
+        employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.CREATED, List.of(saved));
+        return saved;
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    // not one transaction: the lookup must release its connection before saveAll allocates ids (see application.properties)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EmployeeBatchResult saveEmployees(List<Employee> employees) {
+        Set<String> emails = employees.stream()
+                .map(Employee::getEmail)
+                .filter(StringUtils::hasText)
+                .map(EmployeeServiceImpl::normalizeEmail)
+                .collect(Collectors.toSet());
+        // the unique index compares emails without case (utf8mb4_unicode_ci), and so do the lookup and the set
+        Set<String> usedEmails = emails.isEmpty()
+                ? new HashSet<>()
+                : employeeRepository.findExistingEmails(emails).stream()
+                        .map(EmployeeServiceImpl::normalizeEmail)
+                        .collect(Collectors.toCollection(HashSet::new));
+
+        EmployeeBatchItem[] items = new EmployeeBatchItem[employees.size()];
+        List<Employee> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            if (!StringUtils.hasText(employee.getFirstName())
+                    || !StringUtils.hasText(employee.getLastName())
+                    || !StringUtils.hasText(employee.getEmail())) {
+                items[i] = failedItem(i, EmployeeBatchItem.Status.INVALID, "firstName, lastName and email are required");
+            } else if (employee.getFirstName().length() > Employee.MAX_FIELD_LENGTH
+                    || employee.getLastName().length() > Employee.MAX_FIELD_LENGTH
+                    || employee.getEmail().length() > Employee.MAX_FIELD_LENGTH) {
+                // one value the column cannot hold would fail the insert of the whole batch
+                items[i] = failedItem(i, EmployeeBatchItem.Status.INVALID,
+                        "firstName, lastName and email are at most " + Employee.MAX_FIELD_LENGTH + " characters");
+            } else if (!usedEmails.add(normalizeEmail(employee.getEmail()))) {
+                items[i] = duplicateItem(i, employee.getEmail());
+            } else {
+                accepted.add(employee);
+                acceptedIndexes.add(i);
+            }
+        }
+
+        // ids come from the pooled sequence, so hibernate can send the inserts as JDBC batches.
+        // the transaction starts here, like the one of saveAll alone would, and takes the changes along
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                employeeRepository.saveAll(accepted);
+                employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.CREATED, accepted);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateEmail(e)) {
+                throw e;
+            }
+            // an email the lookup did not see: created concurrently in between, or equal only under the collation
+            saveEachAlone(accepted, acceptedIndexes, items);
         }
 
-        return employeeRepository.save(employee);
+        int created = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null) {
+                items[i] = EmployeeBatchItem.builder()
+                        .index(i)
+                        .status(EmployeeBatchItem.Status.CREATED)
+                        .id(employees.get(i).getId())
+                        .build();
+                created++;
+            }
+        }
+        return EmployeeBatchResult.builder()
+                .created(created)
+                .failed(employees.size() - created)
+                .items(Arrays.asList(items))
+                .build();
+    }
+
+    // one transaction per row, so that only the rows whose email is taken fail (as DUPLICATE)
+    private void saveEachAlone(List<Employee> employees, List<Integer> indexes, EmployeeBatchItem[] items) {
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            // the rolled back batch left an id and a version assigned
+            employee.setId(0);
+            employee.setVersion(null);
+            try {
+                transactionOperations.executeWithoutResult(status -> {
+                    employeeRepository.saveAndFlush(employee);
+                    employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.CREATED, List.of(employee));
+                });
+            } catch (DataIntegrityViolationException e) {
+                if (!isDuplicateEmail(e)) {
+                    throw e;
+                }
+                items[indexes.get(i)] = duplicateItem(indexes.get(i), employee.getEmail());
+            }
+        }
+    }
+
+    private static boolean hasChanges(Employee changes) {
+        return changes.getFirstName() != null || changes.getLastName() != null || changes.getEmail() != null;
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static RuntimeException translateDuplicateEmail(DataIntegrityViolationException e, String email) {
+        if (isDuplicateEmail(e)) {
+            return new ResourceNotFoundException("Employee already exist with given email:" + email, e);
+        }
+        return e;
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraint = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName()
+                    : cause.getMessage();
+            if (constraint != null
+                    && constraint.toLowerCase(Locale.ROOT).contains(Employee.EMAIL_UNIQUE_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static EmployeeBatchItem duplicateItem(int index, String email) {
+        return failedItem(index, EmployeeBatchItem.Status.DUPLICATE, "Employee already exist with given email:" + email);
+    }
+
+    private static EmployeeBatchItem failedItem(int index, EmployeeBatchItem.Status status, String message) {
+        return EmployeeBatchItem.builder()
+                .index(index)
+                .status(status)
+                .message(message)
+                .build();
     }
 
     @Override
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
     @Override
-    public Optional<Employee> getEmployeeById(long id) {
-        return employeeRepository.findById(id);
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> getEmployees(long after, int limit) {
+        return employeeRepository.findDtoByIdGreaterThan(after, PageRequest.of(0, limit));
     }
 
     @Override
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
+    public Slice<EmployeeDto> searchEmployees(String firstName, String lastName, String emailDomain, Pageable pageable) {
+        return employeeRepository.searchDtos(Specification.where(EmployeeSpecifications.firstName(firstName))
+                .and(EmployeeSpecifications.lastName(lastName))
+                .and(EmployeeSpecifications.emailDomain(emailDomain)), pageable);
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> suggestEmployees(String query, int limit) {
+        return employeeSearchIndex.suggest(query, limit);
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
+    public void streamAllEmployees(Consumer<EmployeeDto> action) {
+        // DTOs are not managed, so the persistence context stays empty however long the result set is
+        try (Stream<EmployeeDto> employees = employeeRepository.streamAllDto()) {
+            employees.forEach(action);
+        }
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Cacheable(key = "#id", unless = "#result == null")
+    public Optional<EmployeeDto> getEmployeeById(long id) {
+        // what is loaded stays cached until it expires, from a lagging replica that could be the row as it was
+        // before the update (or delete) that evicted it. so the misses are read from the primary, those of concurrent
+        // requests together by the loader
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // the loader reads outside the caller's transaction, which would hide the caller's own writes
+            return ReadWriteRoutingDataSource.readFromPrimary(() -> employeeRepository.findDtoById(id));
+        }
+        return employeeBatchLoader.getEmployeeById(id);
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> getEmployeesByIds(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, EmployeeDto> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinctIds.size()));
+            employeeRepository.findDtoByIdIn(chunk).forEach(employee -> found.put(employee.getId(), employee));
+        }
+        return distinctIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional
+    @CacheEvict(key = "#updatedEmployee.id")
     public Employee updateEmployee(Employee updatedEmployee) {
-        return employeeRepository.save(updatedEmployee);
+        // flushed for the version the change is recorded with
+        Employee saved = employeeRepository.saveAndFlush(updatedEmployee);
+        employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.UPDATED, List.of(saved));
+        return saved;
     }
 
     @Override
-    public void deleteEmployee(long id) {
-        employeeRepository.deleteById(id);
+    @Timed(METRIC_NAME)
+    @Transactional
+    @CacheEvict(key = "#id")
+    public boolean patchEmployee(long id, Employee changes) {
+        int updated;
+        try {
+            updated = employeeRepository.updateNonNullFields(id,
+                    changes.getFirstName(), changes.getLastName(), changes.getEmail(), changes.getVersion());
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateEmail(e, changes.getEmail());
+        }
+        if (updated > 0 && !hasChanges(changes)) {
+            // nothing was written, so there is nothing to index or record
+            return true;
+        }
+        if (updated > 0) {
+            employeeSearchIndex.reindex(id);
+            // the change carries the whole employee, as reloaded for the index (no further query)
+            employeeRepository.findById(id).ifPresent(employee ->
+                    employeeChangeOutbox.recordSaved(EmployeeChangeEvent.Type.UPDATED, List.of(employee)));
+            return true;
+        }
+
+        // a stale version also updates no rows, only then is the extra existence check needed
+        if (changes.getVersion() != null && employeeRepository.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(Employee.class, id);
+        }
+        return false;
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional
+    @CacheEvict(key = "#id")
+    public boolean deleteEmployee(long id) {
+        if (employeeRepository.deleteDirectlyById(id) == 0) {
+            return false;
+        }
+        employeeSearchIndex.purge(List.of(id));
+        employeeChangeOutbox.recordDeleted(List.of(id));
+        return true;
+    }
+
+    @Override
+    @Timed(METRIC_NAME)
+    @Transactional
+    @CacheEvict(allEntries = true)
+    public int deleteEmployees(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        int deleted = 0;
+        // keep each IN list bounded
+        for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size()));
+            int chunkDeleted = employeeRepository.deleteDirectlyByIdIn(chunk);
+            if (chunkDeleted == 0) {
+                continue;
+            }
+            deleted += chunkDeleted;
+            // MySQL's DELETE does not return the ids it removed, and a select before it is the round trip this path
+            // saves. so the deletes are recorded for the whole chunk: exact when all of it was there, else with deletes
+            // of employees that were not, which remove nothing from a client
+            employeeSearchIndex.purge(chunk);
+            employeeChangeOutbox.recordDeleted(chunk);
+        }
+        return deleted;
     }
 }
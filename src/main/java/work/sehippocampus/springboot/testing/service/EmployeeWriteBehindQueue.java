@@ -0,0 +1,218 @@
+package work.sehippocampus.springboot.testing.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeIngestStatus;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts employees into a bounded queue and writes them in batches on a single background thread,
+ * so a burst of creates costs one duplicate-email lookup and one batched insert per batch instead of per request.
+ */
+@Slf4j
+@Component
+public class EmployeeWriteBehindQueue {
+
+    static final String METRIC_PREFIX = "employee.ingest";
+    private static final long POLL_MILLIS = 100;
+    private static final Duration STATUS_TTL = Duration.ofMinutes(10);
+
+    private final EmployeeService employeeService;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Cache<String, EmployeeIngestStatus> statuses;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final Counter rejected;
+
+    // guarded by this, together with the offers into the queue: nothing is accepted after stop() cleared it
+    private boolean running;
+    private Thread writer;
+
+    public EmployeeWriteBehindQueue(EmployeeService employeeService, MeterRegistry meterRegistry,
+                                    @Value("${employee.ingest.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${employee.ingest.batch-size:500}") int batchSize) {
+        this.employeeService = employeeService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        // queued entries must outlive the wait in the queue, so the bound is well above its capacity
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(queueCapacity * 10L)
+                .expireAfterWrite(STATUS_TTL)
+                .build();
+
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                .baseUnit("employees")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder(METRIC_PREFIX + ".flush")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + ".rejected")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        running = true;
+        writer = new Thread(this::drain, "employee-write-behind");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // no interrupt, a flush in progress finishes and whatever is still queued is written before exit
+        synchronized (this) {
+            running = false;
+        }
+        writer.join();
+    }
+
+    /**
+     * @return the queued status, or empty when the queue is full (or shutting down) and the employee was not accepted
+     */
+    public Optional<EmployeeIngestStatus> submit(Employee employee) {
+        String trackingId = UUID.randomUUID().toString();
+        EmployeeIngestStatus queued = EmployeeIngestStatus.builder()
+                .trackingId(trackingId)
+                .status(EmployeeIngestStatus.Status.QUEUED)
+                .build();
+
+        // recorded before offering, the writer may finish the entry before offer returns
+        statuses.put(trackingId, queued);
+        if (!offer(new Pending(trackingId, employee))) {
+            statuses.invalidate(trackingId);
+            rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(queued);
+    }
+
+    private synchronized boolean offer(Pending pending) {
+        // the writer only exits once running is cleared and the queue is empty, so an accepted entry is always written
+        return running && queue.offer(pending);
+    }
+
+    private synchronized boolean isRunning() {
+        return running;
+    }
+
+    public Optional<EmployeeIngestStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (isRunning() || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    // no waiting for a full batch: under load the queue fills up while the previous flush runs
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    log.error("write-behind flush failed", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                running = false;
+            }
+            Thread.currentThread().interrupt();
+        } finally {
+            // only left behind when the writer was interrupted, no status stays QUEUED for an entry nobody writes
+            List<Pending> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(pending -> complete(pending, EmployeeIngestStatus.Status.FAILED, null,
+                    "write-behind queue stopped"));
+        }
+    }
+
+    void flush(List<Pending> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            write(batch);
+        } catch (DataIntegrityViolationException e) {
+            // an email taken between the lookup and the insert (e.g. by a synchronous create) fails the whole batch
+            for (Pending pending : batch) {
+                try {
+                    write(Collections.singletonList(pending));
+                } catch (RuntimeException retryFailure) {
+                    fail(pending, retryFailure);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("write-behind batch of {} failed", batch.size(), e);
+            batch.forEach(pending -> fail(pending, e));
+        } finally {
+            sample.stop(flushLatency);
+            batchSizes.record(batch.size());
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        // fresh instances on every attempt, a failed saveAll leaves ids and versions assigned on the ones it was given
+        List<Employee> employees = batch.stream()
+                .map(pending -> Employee.builder()
+                        .firstName(pending.getEmployee().getFirstName())
+                        .lastName(pending.getEmployee().getLastName())
+                        .email(pending.getEmployee().getEmail())
+                        .build())
+                .collect(Collectors.toList());
+        EmployeeBatchResult result = employeeService.saveEmployees(employees);
+        for (EmployeeBatchItem item : result.getItems()) {
+            complete(batch.get(item.getIndex()), EmployeeIngestStatus.Status.valueOf(item.getStatus().name()),
+                    item.getId(), item.getMessage());
+        }
+    }
+
+    private void fail(Pending pending, RuntimeException e) {
+        complete(pending, EmployeeIngestStatus.Status.FAILED, null, e.getMessage());
+    }
+
+    private void complete(Pending pending, EmployeeIngestStatus.Status status, Long id, String message) {
+        statuses.put(pending.getTrackingId(), EmployeeIngestStatus.builder()
+                .trackingId(pending.getTrackingId())
+                .status(status)
+                .id(id)
+                .message(message)
+                .build());
+    }
+
+    @lombok.Value
+    static class Pending {
+        String trackingId;
+        Employee employee;
+    }
+}
@@ -0,0 +1,237 @@
+package work.sehippocampus.springboot.testing.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Holds a response back until it reaches {@code limit} bytes, so that a smaller one is sent with a Content-Length.
+ * Tomcat only applies server.compression.min-response-size when it knows the length, and the message converters
+ * write and flush without one, so without this every response is compressed.
+ * A response that reaches the limit is passed through from then on, streamed bodies are not held up,
+ * and server-sent events are not held back at all.
+ */
+public class SmallResponseBufferingFilter extends OncePerRequestFilter {
+
+    private final int limit;
+
+    public SmallResponseBufferingFilter(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        BufferingResponse bufferingResponse = new BufferingResponse(response, limit);
+        filterChain.doFilter(request, bufferingResponse);
+        if (request.isAsyncStarted()) {
+            // the body is written later (StreamingResponseBody, NDJSON), it goes straight through
+            bufferingResponse.passThrough();
+        } else {
+            bufferingResponse.complete();
+        }
+    }
+
+    private static class BufferingResponse extends HttpServletResponseWrapper {
+        private static final int INITIAL_BUFFER_SIZE = 256;
+
+        private final int limit;
+
+        // null once the response is passed through
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        BufferingResponse(HttpServletResponse response, int limit) {
+            super(response);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new BufferingOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // an event stream never completes, each event has to go out when it is flushed
+        @Override
+        public void setContentType(String type) {
+            super.setContentType(type);
+            passThroughEventStream(type);
+        }
+
+        // the message converters set the content type as a header
+        @Override
+        public void setHeader(String name, String value) {
+            super.setHeader(name, value);
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                passThroughEventStream(value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            super.addHeader(name, value);
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                passThroughEventStream(value);
+            }
+        }
+
+        private void passThroughEventStream(String type) {
+            // the headers come before the body, nothing is buffered yet
+            if (buffer != null && buffer.size() == 0 && type != null
+                    && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(type))) {
+                buffer = null;
+            }
+        }
+
+        // a flush would commit the response before its length is known
+        @Override
+        public void flushBuffer() throws IOException {
+            if (buffer == null) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (buffer != null) {
+                buffer.reset();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (buffer != null) {
+                buffer.reset();
+            }
+            super.reset();
+        }
+
+        // the container writes the error page or redirect itself
+        @Override
+        public void sendError(int sc) throws IOException {
+            buffer = null;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            buffer = null;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            buffer = null;
+            super.sendRedirect(location);
+        }
+
+        void passThrough() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (buffer != null) {
+                byte[] bytes = buffer.toByteArray();
+                buffer = null;
+                if (bytes.length > 0) {
+                    getResponse().getOutputStream().write(bytes);
+                }
+            }
+        }
+
+        void complete() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            // an empty body keeps no Content-Length (204 and 304 must not have one)
+            if (buffer != null && buffer.size() > 0) {
+                setContentLength(buffer.size());
+            }
+            passThrough();
+        }
+
+        private class BufferingOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                if (buffer != null && buffer.size() + 1 >= limit) {
+                    passThrough();
+                }
+                if (buffer != null) {
+                    buffer.write(b);
+                } else {
+                    getResponse().getOutputStream().write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (buffer != null && buffer.size() + len >= limit) {
+                    passThrough();
+                }
+                if (buffer != null) {
+                    buffer.write(b, off, len);
+                } else {
+                    getResponse().getOutputStream().write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (buffer == null) {
+                    getResponse().getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                complete();
+                getResponse().getOutputStream().close();
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return buffer != null || getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
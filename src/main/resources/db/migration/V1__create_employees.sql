@@ -0,0 +1,8 @@
+-- employees table as it was created by hibernate ddl-auto (baseline)
+create table employees (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,4 @@
+alter table employees add constraint uk_employees_email unique (email);
+
+-- findByJPQL / findByNativeSQL filter on last_name + first_name
+create index idx_employees_last_name_first_name on employees (last_name, first_name);
@@ -0,0 +1,9 @@
+-- table backed "employees_seq" used by hibernate (pooled optimizer, allocationSize = 50).
+-- databases baselined at V1 may already have it from ddl-auto, seeded above their ids
+create table if not exists employees_seq (
+    next_val bigint
+) engine=InnoDB;
+
+-- the pooled optimizer hands out (next_val - 49) .. next_val, so start above the existing ids
+insert into employees_seq select coalesce(max(id), 0) + 50 from employees
+where not exists (select * from employees_seq);
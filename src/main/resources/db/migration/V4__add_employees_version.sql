@@ -0,0 +1 @@
+alter table employees add column version bigint not null default 0;
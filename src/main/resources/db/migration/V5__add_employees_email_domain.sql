@@ -0,0 +1,6 @@
+-- domain part of email for GET /api/employees/search, computed by the database so that every writer keeps it right
+alter table employees add column email_domain varchar(255) as (substring(email, locate('@', email) + 1));
+create index idx_employees_email_domain on employees (email_domain);
+
+-- search filters and sorts on first_name alone, which (last_name, first_name) cannot serve
+create index idx_employees_first_name on employees (first_name);
@@ -0,0 +1,13 @@
+-- transactional outbox behind GET /api/employees/changes: a row per change, inserted in the transaction of the change.
+-- the id orders the feed and is the SSE event id clients resume from, payload is the event data as sent
+create table employee_changes (
+    id bigint not null auto_increment,
+    employee_id bigint not null,
+    type varchar(16) not null,
+    payload text not null,
+    created_at timestamp not null default current_timestamp,
+    primary key (id)
+) engine=InnoDB;
+
+-- pruning of changes older than the retention
+create index idx_employee_changes_created_at on employee_changes (created_at);
@@ -0,0 +1,73 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.SpringBootTestingApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an in-memory H2 (MySQL mode) database and seeds the employees table.
+ */
+final class BenchmarkContext {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of(arguments(databaseName)));
+        arguments.addAll(List.of(extraArguments));
+        return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    // servlet stack on a random port, read it with port(context)
+    static ConfigurableApplicationContext startWeb(String databaseName, String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of(arguments(databaseName)));
+        arguments.add("--server.port=0");
+        arguments.addAll(List.of(extraArguments));
+        return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static String[] arguments(String databaseName) {
+        // command line arguments win over application.properties, so the MySQL datasource is replaced
+        return new String[]{"--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";MODE=MySQL",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                // the search index has to start as empty as the database
+                "--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap"};
+    }
+
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        // pooled connections are not auto-commit
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> insert(context, rows));
+    }
+
+    private static void insert(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> chunk = new ArrayList<>(SEED_CHUNK);
+        for (long id = 1; id <= rows; id++) {
+            chunk.add(new Object[]{id, "taro" + id, "yamada", "taro" + id + ".yamada@sehippocampus.work"});
+            if (chunk.size() == SEED_CHUNK || id == rows) {
+                jdbcTemplate.batchUpdate("insert into employees (id, first_name, last_name, email) values (?, ?, ?, ?)", chunk);
+                chunk.clear();
+            }
+        }
+        // keep the pooled id generator ahead of the seeded ids, as V3__create_employees_seq does
+        jdbcTemplate.update("update employees_seq set next_val = ?", rows + 50L);
+    }
+}
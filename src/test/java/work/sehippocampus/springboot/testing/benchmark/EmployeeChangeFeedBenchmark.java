@@ -0,0 +1,122 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Time from an update until every subscriber of GET /api/employees/changes has received it.
+ * The subscribers are HTTP/1.1 connections of the same JVM, so the heap per subscriber printed at setup
+ * counts the client side of each connection as well and is an upper bound of the server's.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeChangeFeedBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    // two file descriptors per subscriber, client and server side
+    @Param({"1000", "4000"})
+    private int subscribers;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private final List<Flow.Subscription> subscriptions = new ArrayList<>();
+
+    // counted down by every subscriber for the reconnect time and for every event it receives
+    private final AtomicReference<CountDownLatch> received = new AtomicReference<>(new CountDownLatch(0));
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        context = BenchmarkContext.startWeb("changes" + subscribers);
+        BenchmarkContext.seed(context, ROWS);
+        employeeService = context.getBean(EmployeeService.class);
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + BenchmarkContext.port(context) + "/api/employees/changes")).build();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        CountDownLatch subscribed = new CountDownLatch(subscribers);
+        received.set(subscribed);
+        for (int i = 0; i < subscribers; i++) {
+            // the response of an event stream never completes, the reconnect time is its first line
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter()));
+        }
+        if (!subscribed.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(subscribed.getCount() + " of " + subscribers + " subscriptions did not start");
+        }
+        System.gc();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("%n%d subscribers, %d bytes of heap each%n", subscribers, (after - before) / subscribers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        synchronized (subscriptions) {
+            subscriptions.forEach(Flow.Subscription::cancel);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public void fanOut() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(subscribers);
+        received.set(latch);
+        long n = sequence.incrementAndGet();
+        employeeService.patchEmployee(n % ROWS + 1, Employee.builder().firstName("taro" + n).build());
+        if (!latch.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(latch.getCount() + " of " + subscribers + " subscribers did not receive " + n);
+        }
+    }
+
+    private class EventCounter implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (subscriptions) {
+                subscriptions.add(subscription);
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("id:") || line.startsWith("retry:")) {
+                received.get().countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent request throughput of the servlet stack on platform threads (default) and virtual threads
+ * (vthreads profile, needs -Pjava21). Both caches are off so every GET reaches JDBC.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EmployeeHttpBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.startWeb("http" + threads,
+                "--spring.profiles.active=" + ("virtual".equals(threads) ? "nocache,vthreads" : "nocache"),
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        BenchmarkContext.seed(context, ROWS);
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + BenchmarkContext.port(context) + "/api/employees";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getEmployeeById() throws IOException, InterruptedException {
+        long id = ThreadLocalRandom.current().nextLong(1, ROWS + 1L);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build(), 200);
+    }
+
+    @Benchmark
+    public int createEmployee() throws IOException, InterruptedException {
+        long n = sequence.incrementAndGet();
+        String body = "{\"firstName\":\"bench" + n + "\",\"lastName\":\"yamada\","
+                + "\"email\":\"bench" + n + ".yamada@sehippocampus.work\"}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), 201);
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != expectedStatus) {
+            throw new IllegalStateException(request.uri() + " returned " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,97 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+import work.sehippocampus.springboot.testing.importer.EmployeeImporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a generated CSV of a million employees into an empty table, one import per iteration.
+ * The heap is small on purpose (the in-memory database lives in it too): the import has to stream.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx768m")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EmployeeImportBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeImporter employeeImporter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // the search index would be built in the heap as well (local-heap directory)
+        context = BenchmarkContext.start("import" + rows,
+                "--spring.jpa.properties.hibernate.search.automatic_indexing.enabled=false");
+        employeeImporter = context.getBean(EmployeeImporter.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+                context.getBean(JdbcTemplate.class).update("truncate table employees"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EmployeeImportResult importCsv() throws IOException {
+        EmployeeImportResult result = employeeImporter.importEmployees(new GeneratedCsv(rows), EmployeeImporter.Format.CSV,
+                StandardCharsets.UTF_8);
+        if (result.getImported() != rows) {
+            throw new IllegalStateException("imported " + result.getImported() + " of " + rows);
+        }
+        return result;
+    }
+
+    // the file is generated line by line as it is read, it is never in memory as a whole
+    private static class GeneratedCsv extends InputStream {
+        private final int rows;
+        private int nextRow;
+        private byte[] line = "firstName,lastName,email\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+
+        GeneratedCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == line.length) {
+                if (nextRow == rows) {
+                    return -1;
+                }
+                nextRow++;
+                line = ("taro" + nextRow + ",yamada,taro" + nextRow + ".yamada@sehippocampus.work\n")
+                        .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * JSON serialization of Employee lists, as written by the list endpoint.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+
+    private List<Employee> employees;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        employees = LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> Employee.builder()
+                        .id(id)
+                        .firstName("taro" + id)
+                        .lastName("yamada")
+                        .email("taro" + id + ".yamada@sehippocampus.work")
+                        .version(0L)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void writeEmployees() throws IOException {
+        // discard the bytes so only serialization is measured, not buffer growth
+        objectMapper.writeValue(OutputStream.nullOutputStream(), employees);
+    }
+}
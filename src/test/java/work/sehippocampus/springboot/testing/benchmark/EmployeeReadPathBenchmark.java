@@ -0,0 +1,92 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the whole table page by page the way a client paging through GET /api/employees does,
+ * once as managed entities (the read path before DTO projections) and once as DTOs.
+ * Run with the gc profiler (the benchmark maven profile adds it) for bytes allocated per read and GC counts.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeReadPathBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeRepository employeeRepository;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // the second-level cache would turn the entity reads into cache lookups
+        context = BenchmarkContext.start("readpath" + rows,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        BenchmarkContext.seed(context, rows);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void entities(Blackhole blackhole) {
+        long after = 0;
+        List<Employee> page;
+        do {
+            long cursor = after;
+            // the repository has no entity page query any more, the API reads DTOs
+            page = readOnly.execute(status -> entityManager
+                    .createQuery("select e from Employee e where e.id > :after order by e.id", Employee.class)
+                    .setParameter("after", cursor)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList());
+            blackhole.consume(page);
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void dtos(Blackhole blackhole) {
+        long after = 0;
+        List<EmployeeDto> page;
+        do {
+            long cursor = after;
+            page = readOnly.execute(status ->
+                    employeeRepository.findDtoByIdGreaterThan(cursor, PageRequest.of(0, PAGE_SIZE)));
+            blackhole.consume(page);
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,69 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeServiceImpl hot paths against a seeded H2 (MySQL mode) database.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("service" + rows);
+        BenchmarkContext.seed(context, rows);
+        employeeService = context.getBean(EmployeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Employee saveEmployee() {
+        long n = sequence++;
+        return employeeService.saveEmployee(Employee.builder()
+                .firstName("bench" + n)
+                .lastName("yamada")
+                .email("bench" + n + ".yamada@sehippocampus.work")
+                .build());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Optional<EmployeeDto> getEmployeeById() {
+        return employeeService.getEmployeeById(ThreadLocalRandom.current().nextLong(1, rows + 1L));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Employee> getAllEmployees() {
+        return employeeService.getAllEmployees();
+    }
+}
@@ -0,0 +1,64 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchIndex;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/employees/suggest lookups against the search index of a seeded table, as latency percentiles.
+ * Seeded employees are "taro{id} yamada", so "taro{digits}" narrows down like a typed name and "ya" matches everyone.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeSuggestBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        context = BenchmarkContext.start("suggest" + rows);
+        BenchmarkContext.seed(context, rows);
+        // the seed bypasses hibernate, so nothing is indexed yet
+        context.getBean(EmployeeSearchIndex.class).reindexAll();
+        employeeService = context.getBean(EmployeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<EmployeeDto> typedName() {
+        String id = String.valueOf(ThreadLocalRandom.current().nextInt(1, rows + 1));
+        return employeeService.suggestEmployees("taro" + id.substring(0, Math.min(3, id.length())), LIMIT);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> nameAndLastName() {
+        String id = String.valueOf(ThreadLocalRandom.current().nextInt(1, rows + 1));
+        return employeeService.suggestEmployees("taro" + id + " yam", LIMIT);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> commonPrefix() {
+        return employeeService.suggestEmployees("ya", LIMIT);
+    }
+}
@@ -0,0 +1,80 @@
+package work.sehippocampus.springboot.testing.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of an EmployeeDto list in each format the read endpoints negotiate, with and without gzip
+ * (the compression tomcat applies above server.compression.min-response-size).
+ * The payload size of each combination is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeWireFormatBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    private ObjectMapper objectMapper;
+
+    private List<EmployeeDto> employees;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        switch (format) {
+            case "smile":
+                objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            case "cbor":
+                objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            default:
+                objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        employees = LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new EmployeeDto(id, "taro" + id, "yamada",
+                        "taro" + id + ".yamada@sehippocampus.work", 0L))
+                .collect(Collectors.toList());
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        write(payload);
+        System.out.printf("%n%s/%s payload for %d employees: %d bytes%n", format, compression, rows, payload.size());
+    }
+
+    @Benchmark
+    public void writeEmployees() throws IOException {
+        // discard the bytes so only serialization (and compression) is measured, not buffer growth
+        write(OutputStream.nullOutputStream());
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if ("gzip".equals(compression)) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                objectMapper.writeValue(gzip, employees);
+            }
+        } else {
+            objectMapper.writeValue(out, employees);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeChangeFeedTests {
+
+    @Mock
+    private EmployeeChangeOutbox outbox;
+
+    private MeterRegistry meterRegistry;
+
+    private EmployeeChangeFeed feed;
+
+    // the dispatcher thread waits for a commit that never comes, the tests poll themselves
+    private void start(int bufferSize, Duration gapTimeout) {
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new EmployeeChangeFeed(outbox, meterRegistry, bufferSize, 1, Duration.ofHours(1), gapTimeout,
+                Duration.ofDays(7));
+        given(outbox.maxId()).willReturn(0L);
+        feed.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        feed.stop();
+    }
+
+    @DisplayName("欠番のコミットを待って順に配信")
+    @Test
+    public void givenMissingId_whenPoll_thenWaitForItAndDeliverInOrder() throws Exception {
+        // given - precondition or setup
+        start(16, Duration.ofHours(1));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+        given(outbox.findAfter(eq(0L), anyLong(), anyInt())).willReturn(List.of(change(1), change(3)));
+        given(outbox.findAfter(eq(1L), anyLong(), anyInt())).willReturn(List.of(change(2), change(3)));
+
+        // when - action or the behaviour that we are going test
+        feed.poll();
+        String first = emitter.nextEvent();
+        // the transaction of 2 commits
+        feed.poll();
+
+        // then - verify the output
+        assertThat(first).startsWith("id:1\n");
+        assertThat(emitter.nextEvent()).startsWith("id:2\n");
+        assertThat(emitter.nextEvent()).startsWith("id:3\n");
+    }
+
+    @DisplayName("諦めた欠番の遅れた配信")
+    @Test
+    public void givenGapTimeoutPassed_whenMissingIdCommitsLater_thenDeliverItOutOfOrder() throws Exception {
+        // given - precondition or setup
+        start(16, Duration.ZERO);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+        given(outbox.findAfter(eq(0L), anyLong(), anyInt())).willReturn(List.of(change(1), change(3)));
+        given(outbox.findByIds(Set.of(2L))).willReturn(List.of(), List.of(change(2)));
+
+        // when - action or the behaviour that we are going test
+        feed.poll();
+        feed.poll();
+
+        // then - verify the output
+        assertThat(emitter.nextEvent()).startsWith("id:1\n");
+        assertThat(emitter.nextEvent()).startsWith("id:3\n");
+        assertThat(emitter.nextEvent()).startsWith("id:2\n");
+    }
+
+    @DisplayName("バッファが溢れた購読者の切断")
+    @Test
+    public void givenMoreChangesThanBuffer_whenPoll_thenSubscriberIsDisconnected() throws Exception {
+        // given - precondition or setup
+        start(2, Duration.ofHours(1));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+        given(outbox.findAfter(eq(0L), anyLong(), anyInt()))
+                .willReturn(List.of(change(1), change(2), change(3), change(4)));
+
+        // when - action or the behaviour that we are going test
+        feed.poll();
+
+        // then - verify the output
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.events).noneMatch(event -> event.startsWith("id:"));
+        assertThat(meterRegistry.get("employee.changes.overflows").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("employee.changes.subscribers").gauge().value()).isZero();
+    }
+
+    @DisplayName("Last-Event-IDからの再開")
+    @Test
+    public void givenLastEventId_whenSubscribe_thenReplayFromOutboxAndContinueLive() throws Exception {
+        // given - precondition or setup
+        start(16, Duration.ofHours(1));
+        List<EmployeeChange> rows = new CopyOnWriteArrayList<>(List.of(change(1), change(2), change(3)));
+        // read by the polls, and by the replay up to what was polled
+        given(outbox.findAfter(anyLong(), anyLong(), anyInt())).willAnswer(invocation -> rows.stream()
+                .filter(change -> change.getId() > invocation.<Long>getArgument(0)
+                        && change.getId() <= invocation.<Long>getArgument(1))
+                .limit(invocation.<Integer>getArgument(2))
+                .collect(Collectors.toList()));
+        feed.poll();
+        rows.add(change(4));
+
+        // when - action or the behaviour that we are going test
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(1L, emitter);
+        feed.poll();
+
+        // then - verify the output
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(emitter.nextEvent());
+        }
+        assertThat(events).extracting(event -> event.substring(0, event.indexOf('\n')))
+                .containsExactly("id:2", "id:3", "id:4");
+    }
+
+    @DisplayName("保持期間を過ぎたLast-Event-IDからの再開")
+    @Test
+    public void givenPrunedLastEventId_whenSubscribe_thenSendReset() throws Exception {
+        // given - precondition or setup
+        start(16, Duration.ofHours(1));
+        given(outbox.isPrunedAfter(5L)).willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(5L, emitter);
+
+        // then - verify the output
+        assertThat(emitter.nextEvent()).startsWith("event:" + EmployeeChangeFeed.RESET_EVENT + "\n");
+    }
+
+    private static EmployeeChange change(long id) {
+        return new EmployeeChange(id, "{\"type\":\"UPDATED\",\"employeeId\":" + id + "}", Instant.now());
+    }
+
+    // the text of every event sent, it is never connected to a response
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        // the next event that is not the reconnect time
+        String nextEvent() throws InterruptedException {
+            while (true) {
+                String event = events.poll(5, TimeUnit.SECONDS);
+                assertThat(event).as("an event within 5 seconds").isNotNull();
+                if (!event.startsWith("retry:")) {
+                    return event;
+                }
+            }
+        }
+    }
+}
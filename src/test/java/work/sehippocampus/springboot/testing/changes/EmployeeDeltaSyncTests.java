@@ -0,0 +1,127 @@
+package work.sehippocampus.springboot.testing.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.dto.EmployeeDelta;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeDeltaSyncTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private EmployeeChangeOutbox outbox;
+
+    private EmployeeDeltaSync deltaSync;
+
+    @BeforeEach
+    public void setup() {
+        deltaSync = new EmployeeDeltaSync(outbox, objectMapper, Duration.ofSeconds(5));
+    }
+
+    @DisplayName("従業員ごとに最新の変更だけを返す")
+    @Test
+    public void givenSeveralChangesOfAnEmployee_whenChangesSince_thenReturnLatestAndTombstones() throws Exception {
+        // given - precondition or setup
+        given(outbox.findAfter(5L, Long.MAX_VALUE, 4)).willReturn(List.of(
+                change(6, EmployeeChangeEvent.Type.CREATED, 1, 0L, Instant.now()),
+                change(7, EmployeeChangeEvent.Type.CREATED, 2, 0L, Instant.now()),
+                change(8, EmployeeChangeEvent.Type.UPDATED, 1, 1L, Instant.now()),
+                change(9, EmployeeChangeEvent.Type.DELETED, 3, null, Instant.now())));
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDelta> delta = deltaSync.changesSince(5L, 4);
+
+        // then - verify the output
+        assertThat(delta).hasValueSatisfying(page -> {
+            assertThat(page.getUpserted()).extracting(EmployeeDto::getId, EmployeeDto::getVersion)
+                    .containsExactly(tuple(2L, 0L), tuple(1L, 1L));
+            assertThat(page.getDeleted()).containsExactly(3L);
+            assertThat(page.getToken()).isEqualTo(9L);
+            assertThat(page.isHasMore()).isTrue();
+        });
+    }
+
+    @DisplayName("コミット待ちかもしれない欠番の手前で止まる")
+    @Test
+    public void givenRecentGap_whenChangesSince_thenStopBeforeIt() throws Exception {
+        // given - precondition or setup
+        given(outbox.findAfter(5L, Long.MAX_VALUE, 100)).willReturn(List.of(
+                change(6, EmployeeChangeEvent.Type.CREATED, 1, 0L, Instant.now()),
+                change(8, EmployeeChangeEvent.Type.CREATED, 2, 0L, Instant.now())));
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDelta> delta = deltaSync.changesSince(5L, 100);
+
+        // then - verify the output
+        assertThat(delta).hasValueSatisfying(page -> {
+            assertThat(page.getUpserted()).extracting(EmployeeDto::getId).containsExactly(1L);
+            assertThat(page.getToken()).isEqualTo(6L);
+            assertThat(page.isHasMore()).isFalse();
+        });
+    }
+
+    @DisplayName("ギャップタイムアウトを過ぎた欠番は飛ばす")
+    @Test
+    public void givenOldGap_whenChangesSince_thenSkipIt() throws Exception {
+        // given - precondition or setup
+        Instant longAgo = Instant.now().minus(Duration.ofMinutes(1));
+        given(outbox.findAfter(5L, Long.MAX_VALUE, 100)).willReturn(List.of(
+                change(6, EmployeeChangeEvent.Type.CREATED, 1, 0L, longAgo),
+                change(8, EmployeeChangeEvent.Type.CREATED, 2, 0L, longAgo)));
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDelta> delta = deltaSync.changesSince(5L, 100);
+
+        // then - verify the output
+        assertThat(delta).hasValueSatisfying(page -> {
+            assertThat(page.getUpserted()).extracting(EmployeeDto::getId).containsExactly(1L, 2L);
+            assertThat(page.getToken()).isEqualTo(8L);
+        });
+    }
+
+    @DisplayName("保持期間を過ぎたトークン")
+    @Test
+    public void givenPrunedToken_whenChangesSince_thenReturnEmpty() {
+        // given - precondition or setup
+        given(outbox.isPrunedAfter(5L)).willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDelta> delta = deltaSync.changesSince(5L, 100);
+
+        // then - verify the output
+        assertThat(delta).isEmpty();
+        verify(outbox, never()).findAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    private EmployeeChange change(long id, EmployeeChangeEvent.Type type, long employeeId, Long version,
+                                  Instant recordedAt) throws Exception {
+        EmployeeChangeEvent event = EmployeeChangeEvent.builder()
+                .type(type)
+                .employeeId(employeeId)
+                .employee(version == null ? null : new EmployeeDto(employeeId, "taro" + employeeId, "yamada",
+                        "taro" + employeeId + ".yamada@sehippocampus.work", version))
+                .build();
+        return new EmployeeChange(id, objectMapper.writeValueAsString(event), recordedAt);
+    }
+}
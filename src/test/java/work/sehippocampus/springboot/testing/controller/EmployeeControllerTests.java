@@ -1,29 +1,66 @@
 package work.sehippocampus.springboot.testing.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import work.sehippocampus.springboot.testing.changes.EmployeeChangeFeed;
+import work.sehippocampus.springboot.testing.changes.EmployeeDeltaSync;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeDelta;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeIngestStatus;
+import work.sehippocampus.springboot.testing.importer.EmployeeImporter;
 import work.sehippocampus.springboot.testing.model.Employee;
 import work.sehippocampus.springboot.testing.service.EmployeeService;
+import work.sehippocampus.springboot.testing.service.EmployeeWriteBehindQueue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -31,14 +68,30 @@ public class EmployeeControllerTests {
     @Autowired
     private MockMvc mockMvc;
 
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeWriteBehindQueue writeBehindQueue;
+
+    @MockBean
+    private EmployeeImporter employeeImporter;
+
+    @MockBean
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    @MockBean
+    private EmployeeDeltaSync employeeDeltaSync;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     private Employee employee;
 
+    private EmployeeDto employeeDto;
+
     @BeforeEach
     public void setup() {
         employee = Employee.builder()
@@ -47,6 +100,7 @@ public class EmployeeControllerTests {
                 .lastName("yamada")
                 .email("taro.yamada@sehippocampus.work")
                 .build();
+        employeeDto = toDto(employee);
     }
 
     @DisplayName("従業員保存")
@@ -71,21 +125,83 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    @DisplayName("従業員一括保存")
+    @Test
+    public void givenEmployeeList_whenCreateEmployees_thenReturnBatchResult()
+            throws Exception {
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        EmployeeBatchResult batchResult = EmployeeBatchResult.builder()
+                .created(1)
+                .failed(1)
+                .items(List.of(
+                        EmployeeBatchItem.builder().index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build(),
+                        EmployeeBatchItem.builder().index(1).status(EmployeeBatchItem.Status.DUPLICATE).build()))
+                .build();
+        given(employeeService.saveEmployees(any())).willReturn(batchResult);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(employee, employee2))));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.items[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.items[1].status", is("DUPLICATE")));
+    }
+
+    @DisplayName("従業員インポート(CSV)")
+    @Test
+    public void givenCsvBody_whenImportEmployees_thenReturnImportResult()
+            throws Exception {
+        // given - precondition or setup
+        EmployeeImportResult importResult = EmployeeImportResult.builder()
+                .imported(1)
+                .rejected(1)
+                .rejects(List.of(EmployeeBatchItem.builder()
+                        .index(3).status(EmployeeBatchItem.Status.INVALID).message("firstName, lastName and email are required")
+                        .build()))
+                .build();
+        given(employeeImporter.importEmployees(any(), eq(EmployeeImporter.Format.CSV), eq(StandardCharsets.UTF_8)))
+                .willReturn(importResult);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/imports")
+                .contentType(EmployeeImporter.TEXT_CSV_VALUE)
+                .content("firstName,lastName,email\ntaro,yamada,taro.yamada@sehippocampus.work\njiro,yamada,\n"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.rejects[0].index", is(3)))
+                .andExpect(jsonPath("$.rejects[0].status", is("INVALID")));
+    }
+
     @DisplayName("全従業員一覧取得")
     @Test
     public void givenListOfEmployees_whenGetAllEmployee_thenReturnAllEmployeeList()
             throws Exception {
         // given - precondition or setup
-        List<Employee> listOfEmployees = new ArrayList<>();
-        listOfEmployees.add(Employee.builder()
+        List<EmployeeDto> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(EmployeeDto.builder()
                                     .firstName("taro")
                                     .lastName("yamada")
                                     .email("taro.yamada@sehippocampus.work").build());
-        listOfEmployees.add(Employee.builder()
+        listOfEmployees.add(EmployeeDto.builder()
                                     .firstName("jiro")
                                     .lastName("yamada")
                                     .email("jiro.yamada@sehippocampus.work").build());
-        given(employeeService.getAllEmployees()).willReturn(listOfEmployees);
+        given(employeeService.getEmployees(0L, 100)).willReturn(listOfEmployees);
 
         // when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees"));
@@ -93,7 +209,412 @@ public class EmployeeControllerTests {
         // then - verify the output
         response.andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()", is(listOfEmployees.size())));
+                .andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+                .andExpect(header().doesNotExist(EmployeeController.NEXT_CURSOR_HEADER));
+    }
+
+    @DisplayName("従業員一覧取得(キーセットページング)")
+    @Test
+    public void givenFullPage_whenGetEmployeesWithLimit_thenReturnNextCursor()
+            throws Exception {
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        given(employeeService.getEmployees(0L, 2)).willReturn(List.of(employeeDto, toDto(employee2)));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("after", "0")
+                .param("limit", "2"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(header().string(EmployeeController.NEXT_CURSOR_HEADER, "2"));
+    }
+
+    @DisplayName("従業員検索")
+    @Test
+    public void givenFilters_whenSearchEmployees_thenReturnPageSortedWithIdTiebreaker()
+            throws Exception {
+        // given - precondition or setup
+        // lastName is matched exactly, (last_name, first_name, id) has the rows in this order
+        PageRequest expectedPage = PageRequest.of(1, 20, Sort.by("firstName", "id"));
+        given(employeeService.searchEmployees("ta*", "yamada", null, expectedPage))
+                .willReturn(new SliceImpl<>(List.of(employeeDto), expectedPage, true));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("firstName", "ta*")
+                .param("lastName", "yamada")
+                .param("page", "1")
+                .param("size", "20")
+                .param("sort", "firstName"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(1)))
+                .andExpect(jsonPath("$.items[0].email", is(employee.getEmail())))
+                .andExpect(jsonPath("$.page", is(1)))
+                .andExpect(jsonPath("$.size", is(20)))
+                .andExpect(jsonPath("$.hasNext", is(true)));
+    }
+
+    @DisplayName("従業員検索時エラー(インデックスのない項目での並べ替え)")
+    @Test
+    public void givenUnindexedSortProperty_whenSearchEmployees_thenReturn400()
+            throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("sort", "version"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(employeeService, never()).searchEmployees(any(), any(), any(), any());
+    }
+
+    @DisplayName("従業員検索時エラー(インデックス順にならない並べ替え)")
+    @Test
+    public void givenSortNotInIndexOrder_whenSearchEmployees_thenReturn400()
+            throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        // (last_name, first_name, id) has the rows of one last name by first name
+        ResultActions byLastName = mockMvc.perform(get("/api/employees/search")
+                .param("lastName", "yamada")
+                .param("sort", "lastName"));
+        ResultActions withoutFilter = mockMvc.perform(get("/api/employees/search")
+                .param("sort", "firstName"));
+        ResultActions mixedDirections = mockMvc.perform(get("/api/employees/search")
+                .param("firstName", "ta*")
+                .param("sort", "firstName,desc")
+                .param("sort", "id,asc"));
+
+        // then - verify the output
+        byLastName.andExpect(status().isBadRequest());
+        withoutFilter.andExpect(status().isBadRequest());
+        mixedDirections.andExpect(status().isBadRequest());
+        verify(employeeService, never()).searchEmployees(any(), any(), any(), any());
+    }
+
+    @DisplayName("従業員検索(降順)")
+    @Test
+    public void givenDescendingSort_whenSearchEmployees_thenIdTiebreakerFollowsDirection()
+            throws Exception {
+        // given - precondition or setup
+        PageRequest expectedPage = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "emailDomain", "id"));
+        given(employeeService.searchEmployees(null, null, "sehippocampus*", expectedPage))
+                .willReturn(new SliceImpl<>(List.of(employeeDto), expectedPage, false));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("emailDomain", "sehippocampus*")
+                .param("sort", "emailDomain,desc"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(1)));
+    }
+
+    @DisplayName("従業員検索時エラー(深すぎるページ)")
+    @Test
+    public void givenDeepPage_whenSearchEmployees_thenReturn400()
+            throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("page", "101")
+                .param("size", "100"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(employeeService, never()).searchEmployees(any(), any(), any(), any());
+    }
+
+    @DisplayName("従業員サジェスト")
+    @Test
+    public void givenQuery_whenSuggestEmployees_thenReturnHitsWithCappedLimit()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.suggestEmployees("ta yam", 50)).willReturn(List.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/suggest")
+                .param("q", "ta yam")
+                .param("limit", "1000"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].email", is(employee.getEmail())));
+    }
+
+    @DisplayName("従業員一覧取得(Smile)")
+    @Test
+    public void givenSmileAccept_whenGetAllEmployees_thenReturnSmile()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployees(0L, 100)).willReturn(List.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .accept(SMILE));
+
+        // then - verify the output
+        byte[] body = response.andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        List<EmployeeDto> employees = new SmileMapper().readValue(body, new TypeReference<List<EmployeeDto>>() {});
+        assertThat(employees).singleElement()
+                .satisfies(e -> assertThat(e.getEmail()).isEqualTo(employee.getEmail()));
+    }
+
+    @DisplayName("従業員ID検索(CBOR)")
+    @Test
+    public void givenCborAccept_whenGetEmployeeById_thenReturnCbor()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployeeById(employee.getId())).willReturn(Optional.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                .accept(MediaType.APPLICATION_CBOR));
+
+        // then - verify the output
+        byte[] body = response.andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new CBORMapper().readValue(body, EmployeeDto.class).getFirstName())
+                .isEqualTo(employee.getFirstName());
+    }
+
+    @DisplayName("全従業員NDJSONストリーム取得")
+    @Test
+    public void givenEmployees_whenStreamAllEmployees_thenReturnNdjson()
+            throws Exception {
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        willAnswer(invocation -> {
+            Consumer<EmployeeDto> action = invocation.getArgument(0);
+            List.of(employeeDto, toDto(employee2)).forEach(action);
+            return null;
+        }).given(employeeService).streamAllEmployees(any());
+
+        // when - action or the behaviour that we are going test
+        MvcResult result = mockMvc.perform(get("/api/employees")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(result));
+
+        // then - verify the output (same shape as the entity)
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(employee) + "\n"
+                        + objectMapper.writeValueAsString(employee2) + "\n"));
+    }
+
+    @DisplayName("全従業員CSVエクスポート(gzip)")
+    @Test
+    public void givenEmployees_whenExportEmployeesGzipped_thenReturnGzippedCsv()
+            throws Exception {
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada, jr.")
+                .email("jiro.yamada@sehippocampus.work")
+                .version(1L)
+                .build();
+        willAnswer(invocation -> {
+            Consumer<EmployeeDto> action = invocation.getArgument(0);
+            List.of(employeeDto, toDto(employee2)).forEach(action);
+            return null;
+        }).given(employeeService).streamAllEmployees(any());
+
+        // when - action or the behaviour that we are going test
+        MvcResult result = mockMvc.perform(get("/api/employees/export")
+                        .param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(result));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("employees.csv.gz")));
+        byte[] gzipped = response.andReturn().getResponse().getContentAsByteArray();
+        try (InputStream csv = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(new String(csv.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+                    "id,firstName,lastName,email,version\n"
+                            + "1,taro,yamada,taro.yamada@sehippocampus.work,\n"
+                            + "2,jiro,\"yamada, jr.\",jiro.yamada@sehippocampus.work,1\n");
+        }
+    }
+
+    @DisplayName("変更フィードの購読(Last-Event-IDから再開)")
+    @Test
+    public void givenLastEventId_whenStreamChanges_thenSubscribeAfterIt()
+            throws Exception {
+        // given - precondition or setup
+        SseEmitter emitter = new SseEmitter();
+        given(employeeChangeFeed.subscribe(5L)).willReturn(emitter);
+
+        // when - action or the behaviour that we are going test
+        MvcResult result = mockMvc.perform(get("/api/employees/changes")
+                        .header(EmployeeController.LAST_EVENT_ID_HEADER, "5")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event()
+                .id("6")
+                .data("{\"type\":\"DELETED\",\"employeeId\":1}", MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        // then - verify the output
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("id:6\ndata:{\"type\":\"DELETED\",\"employeeId\":1}\n\n"));
+    }
+
+    @DisplayName("トークン以降の差分取得")
+    @Test
+    public void givenToken_whenGetDelta_thenReturnChangesAndNextToken()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeDeltaSync.changesSince(5L, 100)).willReturn(Optional.of(EmployeeDelta.builder()
+                .upserted(List.of(employeeDto))
+                .deleted(List.of(2L))
+                .token(8L)
+                .hasMore(false)
+                .build()));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/delta").param("since", "5"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted[0].email", is(employeeDto.getEmail())))
+                .andExpect(jsonPath("$.deleted[0]", is(2)))
+                .andExpect(jsonPath("$.token", is(8)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+    @DisplayName("差分取得の開始トークン")
+    @Test
+    public void givenNoToken_whenGetDelta_thenReturnCurrentToken()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeDeltaSync.currentToken()).willReturn(42L);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/delta"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted.size()", is(0)))
+                .andExpect(jsonPath("$.deleted.size()", is(0)))
+                .andExpect(jsonPath("$.token", is(42)));
+        verify(employeeDeltaSync, never()).changesSince(anyLong(), anyInt());
+    }
+
+    @DisplayName("保持期間を過ぎたトークンでの差分取得")
+    @Test
+    public void givenPrunedToken_whenGetDelta_thenReturn410()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeDeltaSync.changesSince(5L, 100)).willReturn(Optional.empty());
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/delta").param("since", "5"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isGone());
+    }
+
+    @DisplayName("複数ID検索")
+    @Test
+    public void givenIds_whenGetEmployeesByIds_thenReturnInRequestedOrderAndMissing()
+            throws Exception {
+        // given - precondition or setup
+        EmployeeDto second = toDto(Employee.builder().id(2L).firstName("jiro").version(0L).build());
+        given(employeeService.getEmployeesByIds(List.of(2L, 9L, 1L))).willReturn(List.of(second, employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("ids", "2,9,1"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.items.size()", is(2)))
+                .andExpect(jsonPath("$.items[0].firstName", is("jiro")))
+                .andExpect(jsonPath("$.items[1].firstName", is(employee.getFirstName())))
+                .andExpect(jsonPath("$.missing.size()", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is(9)));
+    }
+
+    @DisplayName("POSTでの複数ID検索")
+    @Test
+    public void givenIdsInBody_whenLookupEmployees_thenReturnFoundAndMissing()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployeesByIds(List.of(1L, 9L, 1L))).willReturn(List.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,9,1]"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(1)))
+                .andExpect(jsonPath("$.items[0].email", is(employeeDto.getEmail())))
+                .andExpect(jsonPath("$.missing.size()", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is(9)));
+    }
+
+    @DisplayName("GETでの上限を超える複数ID検索")
+    @Test
+    public void givenTooManyIds_whenGetEmployeesByIds_thenReturn413()
+            throws Exception {
+        // given - precondition or setup
+        String ids = String.join(",", Collections.nCopies(1001, "1"));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("ids", ids));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isPayloadTooLarge());
+        verify(employeeService, never()).getEmployeesByIds(any());
     }
 
     @DisplayName("従業員ID検索")
@@ -102,7 +623,7 @@ public class EmployeeControllerTests {
             throws Exception {
         // given - precondition or setup
         given(employeeService.getEmployeeById(employee.getId()))
-                .willReturn(Optional.of(employee));
+                .willReturn(Optional.of(employeeDto));
 
         // when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
@@ -142,7 +663,7 @@ public class EmployeeControllerTests {
                 .email("jiro.yamada@sehippocampus.work")
                 .build();
         given(employeeService.getEmployeeById(employee.getId()))
-                .willReturn(Optional.of(employee));
+                .willReturn(Optional.of(employeeDto));
         given(employeeService.updateEmployee(any(Employee.class)))
                 .willAnswer(invocation -> invocation.getArgument(0));
 
@@ -186,18 +707,379 @@ public class EmployeeControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @DisplayName("従業員部分更新")
+    @Test
+    public void givenChanges_whenPatchEmployee_thenReturn204()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yamada.taro@sehippocampus.work\"}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+        verify(employeeService, never()).getEmployeeById(anyLong());
+    }
+
+    @DisplayName("従業員部分更新エラー")
+    @Test
+    public void givenMissingEmployee_whenPatchEmployee_thenReturn404()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willReturn(false);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"jiro\"}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("従業員部分更新(変更なし)")
+    @Test
+    public void givenNoChanges_whenPatchEmployee_thenReturn400()
+            throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(employeeService, never()).patchEmployee(anyLong(), any(Employee.class));
+    }
+
+    @DisplayName("従業員部分更新時バージョン不一致")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenReturn409()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employee.getId()));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"jiro\",\"version\":0}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    @DisplayName("従業員ID検索(ETag一致)")
+    @Test
+    public void givenMatchingIfNoneMatch_whenGetEmployeeById_thenReturn304WithoutBody()
+            throws Exception {
+        // given - precondition or setup
+        employeeDto = toDto(Employee.builder().id(1L).firstName("taro").version(3L).build());
+        given(employeeService.getEmployeeById(employee.getId()))
+                .willReturn(Optional.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+    }
+
+    @DisplayName("従業員ID検索(形式ごとのETag)")
+    @Test
+    public void givenSmileOrCborAccept_whenGetEmployeeByIdWithIfNoneMatch_thenETagOfThatFormat()
+            throws Exception {
+        // given - precondition or setup
+        employeeDto = toDto(Employee.builder().id(1L).firstName("taro").version(3L).build());
+        given(employeeService.getEmployeeById(employee.getId()))
+                .willReturn(Optional.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        ResultActions smile = mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                .accept(SMILE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+        ResultActions cbor = mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""));
+
+        // then - verify the output
+        // the JSON tag does not revalidate a Smile response
+        smile.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+        cbor.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+    }
+
+    @DisplayName("従業員一覧取得(形式ごとのETag)")
+    @Test
+    public void givenSamePage_whenGetAllEmployeesAsJsonAndSmile_thenDifferentETags()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployees(0L, 100)).willReturn(List.of(employeeDto));
+        String jsonETag = mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .accept(SMILE)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonETag));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, jsonETag.substring(0, jsonETag.length() - 1) + "-smile\""));
+    }
+
+    @DisplayName("従業員一覧取得(ETag一致)")
+    @Test
+    public void givenUnchangedPage_whenGetAllEmployeesWithIfNoneMatch_thenReturn304()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployees(0L, 100)).willReturn(List.of(employeeDto));
+        String eTag = mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // weak, so that tomcat still compresses the page
+        assertThat(eTag).startsWith("W/\"");
+    }
+
+    @DisplayName("従業員更新時If-Match不一致")
+    @Test
+    public void givenStaleIfMatch_whenUpdateEmployee_thenReturn412()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.getEmployeeById(employee.getId()))
+                .willReturn(Optional.of(employeeDto));
+        given(employeeService.updateEmployee(any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employee.getId()));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isPreconditionFailed());
+        verify(employeeService).updateEmployee(argThat(e -> e.getVersion() == 2L));
+    }
+
+    @DisplayName("従業員部分更新(If-Match)")
+    @Test
+    public void givenIfMatch_whenPatchEmployee_thenVersionIsCheckedAndNewETagReturned()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"jiro\"}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        verify(employeeService).patchEmployee(eq(employee.getId()), argThat(e -> e.getVersion() == 2L));
+    }
+
+    @DisplayName("従業員部分更新(他の形式のETagでIf-Match)")
+    @Test
+    public void givenIfMatchOfSmileETag_whenPatchEmployee_thenVersionIsCheckedAndSmileETagReturned()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.patchEmployee(eq(employee.getId()), any(Employee.class)))
+                .willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                patch("/api/employees/{id}", employee.getId())
+                        .accept(SMILE)
+                        .header(HttpHeaders.IF_MATCH, "\"2-smile\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"jiro\"}"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+        verify(employeeService).patchEmployee(eq(employee.getId()), argThat(e -> e.getVersion() == 2L));
+    }
+
     @DisplayName("従業員削除")
     @Test
-    public void givenEmployeeId_whenDeleteEmployee_thenReturn200()
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn204()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.deleteEmployee(employee.getId())).willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employee.getId()));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+    }
+
+    @DisplayName("従業員削除エラー")
+    @Test
+    public void givenMissingEmployeeId_whenDeleteEmployee_thenReturn404()
             throws Exception {
         // given - precondition or setup
-        willDoNothing().given(employeeService).deleteEmployee(employee.getId());
+        given(employeeService.deleteEmployee(employee.getId())).willReturn(false);
 
         // when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employee.getId()));
 
         // then - verify the output
         response.andDo(print())
-                .andExpect(status().isOk());
+                .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("従業員一括削除")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturnDeletedCount()
+            throws Exception {
+        // given - precondition or setup
+        given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(2);
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees").param("ids", "1,2,3"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested", is(3)))
+                .andExpect(jsonPath("$.deleted", is(2)));
+    }
+
+    @DisplayName("従業員非同期保存")
+    @Test
+    public void givenRespondAsync_whenCreateEmployee_thenReturn202WithTrackingId()
+            throws Exception {
+        // given - precondition or setup
+        EmployeeIngestStatus queued = EmployeeIngestStatus.builder()
+                .trackingId("0f8fad5b-d9cb-469f-a165-70867728950e")
+                .status(EmployeeIngestStatus.Status.QUEUED)
+                .build();
+        given(writeBehindQueue.submit(any(Employee.class))).willReturn(Optional.of(queued));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location",
+                        "http://localhost/api/employees/ingestions/" + queued.getTrackingId()))
+                .andExpect(jsonPath("$.trackingId", is(queued.getTrackingId())))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+        verify(employeeService, never()).saveEmployee(any(Employee.class));
+    }
+
+    @DisplayName("従業員非同期保存エラー(キュー満杯)")
+    @Test
+    public void givenFullQueue_whenCreateEmployeeAsync_thenReturn503()
+            throws Exception {
+        // given - precondition or setup
+        given(writeBehindQueue.submit(any(Employee.class))).willReturn(Optional.empty());
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @DisplayName("非同期保存の状態取得")
+    @Test
+    public void givenTrackingId_whenGetIngestStatus_thenReturnStatus()
+            throws Exception {
+        // given - precondition or setup
+        EmployeeIngestStatus created = EmployeeIngestStatus.builder()
+                .trackingId("0f8fad5b-d9cb-469f-a165-70867728950e")
+                .status(EmployeeIngestStatus.Status.CREATED)
+                .id(employee.getId())
+                .build();
+        given(writeBehindQueue.getStatus(created.getTrackingId())).willReturn(Optional.of(created));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(
+                get("/api/employees/ingestions/{trackingId}", created.getTrackingId()));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CREATED")))
+                .andExpect(jsonPath("$.id", is((int) employee.getId())));
+    }
+
+    @DisplayName("非同期保存の状態取得エラー")
+    @Test
+    public void givenUnknownTrackingId_whenGetIngestStatus_thenReturn404()
+            throws Exception {
+        // given - precondition or setup
+        given(writeBehindQueue.getStatus("unknown")).willReturn(Optional.empty());
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/ingestions/{trackingId}", "unknown"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    private static EmployeeDto toDto(Employee employee) {
+        return EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
     }
 }
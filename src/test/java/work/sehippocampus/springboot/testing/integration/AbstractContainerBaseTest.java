@@ -23,5 +23,7 @@ public abstract class AbstractContainerBaseTest {
         registry.add("spring.datasource.url", MY_SQL_CONTAINER::getJdbcUrl);
         registry.add("spring.datasource.username", MY_SQL_CONTAINER::getUsername);
         registry.add("spring.datasource.password", MY_SQL_CONTAINER::getPassword);
+        // one search index per application context, the default directory would be shared
+        registry.add("spring.jpa.properties.hibernate.search.backend.directory.type", () -> "local-heap");
     }
 }
@@ -0,0 +1,73 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class EmployeeBatchInsertIT extends AbstractContainerBaseTest {
+
+    private static final int ROWS = 2000;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("一括保存と1件ずつ保存のスループット比較")
+    @Test
+    public void givenManyEmployees_whenSaveEmployees_thenFasterThanPerRowSave() {
+        // given - precondition or setup
+        List<Employee> perRowEmployees = employees("single", ROWS);
+        List<Employee> batchEmployees = employees("batch", ROWS);
+
+        // when - action or the behaviour that we are going test
+        long start = System.nanoTime();
+        perRowEmployees.forEach(employeeService::saveEmployee);
+        double perRowRowsPerSec = rowsPerSecond(ROWS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        EmployeeBatchResult result = employeeService.saveEmployees(batchEmployees);
+        double batchRowsPerSec = rowsPerSecond(ROWS, System.nanoTime() - start);
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(ROWS);
+        assertThat(employeeRepository.count()).isEqualTo(ROWS * 2L);
+        assertThat(batchRowsPerSec)
+                .as("batch %.0f rows/sec, per-row %.0f rows/sec", batchRowsPerSec, perRowRowsPerSec)
+                .isGreaterThan(perRowRowsPerSec);
+    }
+
+    private static List<Employee> employees(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Employee.builder()
+                        .firstName(prefix + i)
+                        .lastName("yamada")
+                        .email(prefix + i + ".yamada@sehippocampus.work")
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static double rowsPerSecond(int rows, long elapsedNanos) {
+        return rows / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
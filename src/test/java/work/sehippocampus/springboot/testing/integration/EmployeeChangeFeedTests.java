@@ -0,0 +1,192 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.controller.EmployeeController;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// a real server, the events have to arrive while the response is still open.
+// a change rolled back by another test class leaves a gap in the shared database, it is not waited for long
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "employee.changes.gap-timeout=1s")
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeChangeFeedTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    @DisplayName("従業員の作成・部分更新・削除の配信")
+    @Test
+    public void givenSubscriber_whenEmployeeIsCreatedPatchedAndDeleted_thenReceiveEachChange() throws Exception {
+        // given - precondition or setup
+        Subscription subscription = subscribe(null);
+
+        // when - action or the behaviour that we are going test
+        Employee employee = employeeService.saveEmployee(employee("taro"));
+        employeeService.patchEmployee(employee.getId(), Employee.builder().firstName("jiro").build());
+        employeeService.deleteEmployee(employee.getId());
+
+        // then - verify the output
+        List<Event> events = List.of(subscription.next(), subscription.next(), subscription.next());
+        assertThat(events).extracting(event -> event.data.getType(), event -> event.data.getEmployeeId())
+                .containsExactly(
+                        tuple(EmployeeChangeEvent.Type.CREATED, employee.getId()),
+                        tuple(EmployeeChangeEvent.Type.UPDATED, employee.getId()),
+                        tuple(EmployeeChangeEvent.Type.DELETED, employee.getId()));
+        assertThat(events.get(1).data.getEmployee().getFirstName()).isEqualTo("jiro");
+        assertThat(events.get(1).data.getEmployee().getVersion()).isEqualTo(1L);
+        assertThat(events.get(2).data.getEmployee()).isNull();
+        assertThat(events.get(0).id).isLessThan(events.get(1).id);
+        assertThat(events.get(1).id).isLessThan(events.get(2).id);
+    }
+
+    @DisplayName("切断中の変更をLast-Event-IDから受け取る")
+    @Test
+    public void givenLastEventId_whenResubscribe_thenReceiveMissedChangesAndThenLiveOnes() throws Exception {
+        // given - precondition or setup
+        Subscription first = subscribe(null);
+        employeeService.saveEmployee(employee("taro"));
+        long lastEventId = first.next().id;
+        first.close();
+        Employee missed1 = employeeService.saveEmployee(employee("jiro"));
+        Employee missed2 = employeeService.saveEmployee(employee("saburo"));
+
+        // when - action or the behaviour that we are going test
+        Subscription resumed = subscribe(lastEventId);
+        Event replayed1 = resumed.next();
+        Event replayed2 = resumed.next();
+        Employee live = employeeService.saveEmployee(employee("shiro"));
+
+        // then - verify the output
+        assertThat(List.of(replayed1, replayed2, resumed.next()))
+                .extracting(event -> event.data.getEmployeeId())
+                .containsExactly(missed1.getId(), missed2.getId(), live.getId());
+    }
+
+    private static Employee employee(String firstName) {
+        return Employee.builder()
+                .firstName(firstName)
+                .lastName("yamada")
+                .email(firstName + ".yamada@sehippocampus.work")
+                .build();
+    }
+
+    // returns once the response headers are in, the subscription is registered by then
+    private Subscription subscribe(Long lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/api/employees/changes"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (lastEventId != null) {
+            request.header(EmployeeController.LAST_EVENT_ID_HEADER, lastEventId.toString());
+        }
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValueSatisfying(
+                contentType -> assertThat(contentType).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        Subscription subscription = new Subscription(response.body());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private static class Event {
+        long id;
+        EmployeeChangeEvent data;
+    }
+
+    // reads the stream on a thread of its own, so that a missing event fails the test instead of hanging it
+    private class Subscription {
+        private final InputStream body;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+        Subscription(InputStream body) {
+            this.body = body;
+            Thread reader = new Thread(() -> {
+                try (BufferedReader events = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = events.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    // closed by the test
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        // the next event with data, the reconnect time and heartbeats have none
+        Event next() throws Exception {
+            Event event = new Event();
+            while (true) {
+                String line = lines.poll(10, TimeUnit.SECONDS);
+                assertThat(line).as("an event within 10 seconds").isNotNull();
+                if (line.startsWith("id:")) {
+                    event.id = Long.parseLong(line.substring("id:".length()));
+                } else if (line.startsWith("data:")) {
+                    event.data = objectMapper.readValue(line.substring("data:".length()), EmployeeChangeEvent.class);
+                } else if (line.isEmpty() && event.data != null) {
+                    return event;
+                }
+            }
+        }
+
+        void close() throws IOException {
+            body.close();
+        }
+    }
+}
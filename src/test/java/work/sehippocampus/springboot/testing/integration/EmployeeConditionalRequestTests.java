@@ -0,0 +1,116 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// with the employees cache (no "nocache" profile), which answers the If-None-Match of GET /api/employees/{id}
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class EmployeeConditionalRequestTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        cacheManager.getCache("employees").clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+    }
+
+    @DisplayName("変更のない従業員の再検証はDBを読まない")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeByIdWithIfNoneMatch_thenReturn304WithoutStatements() throws Exception {
+        // given - precondition or setup
+        String eTag = mockMvc.perform(get("/api/employees/{id}", employee.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+                // then - verify the output
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        assertThat(eTag).isEqualTo("\"" + employee.getVersion() + "\"");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @DisplayName("If-Match付きの部分更新後の再検証")
+    @Test
+    public void givenPatchWithIfMatch_whenGetEmployeeByIdWithOldETag_thenReturnNewVersion() throws Exception {
+        // given - precondition or setup
+        String oldETag = mockMvc.perform(get("/api/employees/{id}", employee.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String newETag = mockMvc.perform(patch("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, oldETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"jiro\"}"))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(get("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, oldETag))
+
+                // then - verify the output
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, newETag));
+        // the old tag is stale now
+        mockMvc.perform(put("/api/employees/{id}", employee.getId())
+                        .header(HttpHeaders.IF_MATCH, oldETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"saburo\",\"lastName\":\"yamada\",\"email\":\"taro.yamada@sehippocampus.work\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(employeeRepository.findById(employee.getId()))
+                .hasValueSatisfying(e -> assertThat(e.getFirstName()).isEqualTo("jiro"));
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -21,6 +22,7 @@ import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -29,6 +31,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
+@ActiveProfiles("nocache")
 public class EmployeeControllerIT extends AbstractContainerBaseTest {
 
     @Autowired
@@ -183,7 +186,7 @@ public class EmployeeControllerIT extends AbstractContainerBaseTest {
 
     @DisplayName("従業員削除")
     @Test
-    public void givenEmployeeId_whenDeleteEmployee_thenReturn200()
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn204()
             throws Exception {
         // given - precondition or setup
         employeeRepository.save(employee);
@@ -193,7 +196,23 @@ public class EmployeeControllerIT extends AbstractContainerBaseTest {
 
         // then - verify the output
         response.andDo(print())
-                .andExpect(status().isOk());
+                .andExpect(status().isNoContent());
+        assertThat(employeeRepository.existsById(employee.getId())).isFalse();
+    }
+
+    @DisplayName("従業員削除エラー")
+    @Test
+    public void givenMissingEmployeeId_whenDeleteEmployee_thenReturn404()
+            throws Exception {
+        // given - precondition or setup
+        long employeeId = 1L;
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
     }
 
 }
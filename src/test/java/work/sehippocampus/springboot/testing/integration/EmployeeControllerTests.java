@@ -8,15 +8,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeIngestStatus;
+import work.sehippocampus.springboot.testing.exception.ResourceNotFoundException;
 import work.sehippocampus.springboot.testing.model.Employee;
 import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
@@ -28,6 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
+@ActiveProfiles("nocache")
 public class EmployeeControllerTests {
     @Autowired
     private MockMvc mockMvc;
@@ -35,6 +45,9 @@ public class EmployeeControllerTests {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeService employeeService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -70,6 +83,92 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    @DisplayName("同一Emailの同時保存")
+    @Test
+    public void givenSameEmail_whenCreateEmployeesConcurrently_thenOnlyOneIsSaved()
+            throws Exception {
+        // given - precondition or setup
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Employee>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Employee sameEmailEmployee = Employee.builder()
+                    .firstName("taro" + i)
+                    .lastName("yamada")
+                    .email(employee.getEmail())
+                    .build();
+            futures.add(executor.submit(() -> {
+                start.await();
+                return employeeService.saveEmployee(sameEmailEmployee);
+            }));
+        }
+
+        // when - action or the behaviour that we are going test
+        start.countDown();
+        int saved = 0;
+        int duplicated = 0;
+        for (Future<Employee> future : futures) {
+            try {
+                future.get();
+                saved++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(ResourceNotFoundException.class);
+                duplicated++;
+            }
+        }
+        executor.shutdown();
+
+        // then - verify the output
+        assertThat(saved).isEqualTo(1);
+        assertThat(duplicated).isEqualTo(threads - 1);
+        assertThat(employeeRepository.findByEmail(employee.getEmail())).isPresent();
+    }
+
+    @DisplayName("同一Emailを含む一括保存の同時実行")
+    @Test
+    public void givenSameEmailInBatches_whenSaveEmployeesConcurrently_thenOthersAreReportedAsDuplicate()
+            throws Exception {
+        // given - precondition or setup
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<EmployeeBatchResult>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            List<Employee> batch = List.of(
+                    Employee.builder()
+                            .firstName("taro" + i)
+                            .lastName("yamada")
+                            .email(i % 2 == 0 ? employee.getEmail() : employee.getEmail().toUpperCase())
+                            .build(),
+                    Employee.builder()
+                            .firstName("jiro" + i)
+                            .lastName("yamada")
+                            .email("jiro" + i + ".yamada@sehippocampus.work")
+                            .build());
+            futures.add(executor.submit(() -> {
+                start.await();
+                return employeeService.saveEmployees(batch);
+            }));
+        }
+
+        // when - action or the behaviour that we are going test
+        start.countDown();
+        List<EmployeeBatchResult> results = new ArrayList<>();
+        for (Future<EmployeeBatchResult> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        // then - verify the output
+        assertThat(results).extracting(result -> result.getItems().get(1).getStatus())
+                .containsOnly(EmployeeBatchItem.Status.CREATED);
+        assertThat(results).extracting(result -> result.getItems().get(0).getStatus())
+                .containsOnly(EmployeeBatchItem.Status.CREATED, EmployeeBatchItem.Status.DUPLICATE);
+        assertThat(employeeRepository.count())
+                .isEqualTo(threads + results.stream().filter(result -> result.getCreated() == 2).count());
+    }
+
     @DisplayName("全従業員一覧取得")
     @Test
     public void givenListOfEmployees_whenGetAllEmployee_thenReturnAllEmployeeList()
@@ -181,7 +280,7 @@ public class EmployeeControllerTests {
 
     @DisplayName("従業員削除")
     @Test
-    public void givenEmployeeId_whenDeleteEmployee_thenReturn200()
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn204()
             throws Exception {
         // given - precondition or setup
         employeeRepository.save(employee);
@@ -191,11 +290,53 @@ public class EmployeeControllerTests {
 
         // then - verify the output
         response.andDo(print())
-                .andExpect(status().isOk());
+                .andExpect(status().isNoContent());
+        assertThat(employeeRepository.existsById(employee.getId())).isFalse();
     }
 
-}
+    @DisplayName("従業員削除エラー")
+    @Test
+    public void givenMissingEmployeeId_whenDeleteEmployee_thenReturn404()
+            throws Exception {
+        // given - precondition or setup
+        long employeeId = 1L;
 
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
 
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
 
+    @DisplayName("従業員非同期保存")
+    @Test
+    public void givenRespondAsync_whenCreateEmployee_thenEmployeeIsWrittenInBackground()
+            throws Exception {
+        // given - precondition or setup
 
+        // when - action or the behaviour that we are going test
+        MvcResult accepted = mockMvc.perform(post("/api/employees")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String location = accepted.getResponse().getHeader("Location");
+
+        // then - verify the output
+        EmployeeIngestStatus ingestStatus = null;
+        for (int i = 0; i < 100; i++) {
+            ingestStatus = objectMapper.readValue(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), EmployeeIngestStatus.class);
+            if (ingestStatus.getStatus() != EmployeeIngestStatus.Status.QUEUED) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(ingestStatus.getStatus()).isEqualTo(EmployeeIngestStatus.Status.CREATED);
+        assertThat(employeeRepository.findById(ingestStatus.getId()))
+                .hasValueSatisfying(saved -> assertThat(saved.getEmail()).isEqualTo(employee.getEmail()));
+    }
+}
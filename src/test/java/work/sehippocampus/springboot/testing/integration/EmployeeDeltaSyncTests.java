@@ -0,0 +1,122 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import work.sehippocampus.springboot.testing.dto.EmployeeDelta;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeDeltaSyncTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private List<Employee> employees;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        employees = IntStream.range(0, 10)
+                .mapToObj(i -> employeeService.saveEmployee(employee("taro" + i)))
+                .collect(Collectors.toList());
+    }
+
+    @DisplayName("トークン以降に変更された従業員と削除された従業員だけを返す")
+    @Test
+    public void givenToken_whenEmployeesChange_thenDeltaHasOnlyTheChanges() throws Exception {
+        // given - precondition or setup
+        long token = delta(get("/api/employees/delta")).getToken();
+
+        // when - action or the behaviour that we are going test
+        Employee patched = employees.get(0);
+        employeeService.patchEmployee(patched.getId(), Employee.builder().firstName("jiro").build());
+        employeeService.patchEmployee(patched.getId(), Employee.builder().firstName("saburo").build());
+        Employee created = employeeService.saveEmployee(employee("shiro"));
+        Employee deleted = employees.get(1);
+        employeeService.deleteEmployee(deleted.getId());
+        EmployeeDelta delta = delta(get("/api/employees/delta").param("since", String.valueOf(token)));
+
+        // then - verify the output
+        assertThat(delta.getUpserted()).extracting(EmployeeDto::getId, EmployeeDto::getFirstName, EmployeeDto::getVersion)
+                .containsExactly(tuple(patched.getId(), "saburo", 2L), tuple(created.getId(), "shiro", 0L));
+        assertThat(delta.getDeleted()).containsExactly(deleted.getId());
+        assertThat(delta.isHasMore()).isFalse();
+        // nothing changed since
+        EmployeeDelta next = delta(get("/api/employees/delta").param("since", String.valueOf(delta.getToken())));
+        assertThat(next.getUpserted()).isEmpty();
+        assertThat(next.getDeleted()).isEmpty();
+        assertThat(next.getToken()).isEqualTo(delta.getToken());
+    }
+
+    @DisplayName("上限件数ずつのページで差分を返す")
+    @Test
+    public void givenMoreChangesThanLimit_whenFollowTokens_thenReceiveAllInPages() throws Exception {
+        // given - precondition or setup
+        long token = delta(get("/api/employees/delta")).getToken();
+        employees.forEach(employee ->
+                employeeService.patchEmployee(employee.getId(), Employee.builder().lastName("suzuki").build()));
+
+        // when - action or the behaviour that we are going test
+        List<Long> upserted = new ArrayList<>();
+        int pages = 0;
+        EmployeeDelta delta;
+        do {
+            delta = delta(get("/api/employees/delta").param("since", String.valueOf(token)).param("limit", "4"));
+            delta.getUpserted().forEach(employee -> upserted.add(employee.getId()));
+            token = delta.getToken();
+            pages++;
+        } while (delta.isHasMore());
+
+        // then - verify the output
+        assertThat(upserted).containsExactlyElementsOf(
+                employees.stream().map(Employee::getId).collect(Collectors.toList()));
+        assertThat(pages).isEqualTo(3);
+    }
+
+    private static Employee employee(String firstName) {
+        return Employee.builder()
+                .firstName(firstName)
+                .lastName("yamada")
+                .email(firstName + ".yamada@sehippocampus.work")
+                .build();
+    }
+
+    private EmployeeDelta delta(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, EmployeeDelta.class);
+    }
+}
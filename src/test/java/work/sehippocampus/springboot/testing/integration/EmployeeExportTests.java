@@ -0,0 +1,138 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a real server, MockMvc would collect the whole response in memory
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeExportTests {
+
+    private static final int ROWS = 200_000;
+    private static final int SEED_CHUNK = 10_000;
+    private static final int SAMPLE_EVERY = 20_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setup() {
+        // pooled connections are not auto-commit
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from employees");
+            List<Object[]> chunk = new ArrayList<>(SEED_CHUNK);
+            for (long id = 1; id <= ROWS; id++) {
+                chunk.add(new Object[]{id, "taro" + id, "yamada", "taro" + id + ".yamada@sehippocampus.work"});
+                if (chunk.size() == SEED_CHUNK) {
+                    jdbcTemplate.batchUpdate("insert into employees (id, first_name, last_name, email) values (?, ?, ?, ?)", chunk);
+                    chunk.clear();
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        // the in-memory database outlives the test, and the other test classes do not expect this many rows
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("delete from employees"));
+    }
+
+    @DisplayName("大量データのCSVエクスポートはヒープを使い続けない")
+    @Test
+    public void givenLargeTable_whenExportEmployees_thenLiveHeapStaysBounded() throws Exception {
+        // given - precondition or setup
+        // once before measuring, the in-memory database settles (page cache, garbage of the seed) on the first full read
+        export(response -> { });
+        long baseline = liveHeap();
+
+        // when - action or the behaviour that we are going test
+        long[] maxGrowth = {0};
+        List<String> header = new ArrayList<>();
+        long lines = export(line -> {
+            if (header.isEmpty()) {
+                header.add(line);
+            }
+        }, sampled -> maxGrowth[0] = Math.max(maxGrowth[0], liveHeap() - baseline));
+
+        // then - verify the output
+        long beforeMaterialized = liveHeap();
+        List<Employee> materialized = employeeService.getAllEmployees();
+        long materializedGrowth = liveHeap() - beforeMaterialized;
+        assertThat(header).containsExactly("id,firstName,lastName,email,version");
+        assertThat(lines).isEqualTo(ROWS + 1);
+        // the other contexts of the run and the database itself move the baseline by a few megabytes
+        assertThat(maxGrowth[0])
+                .as("%d employees: export at most %d bytes, getAllEmployees retains %d bytes",
+                        materialized.size(), maxGrowth[0], materializedGrowth)
+                .isLessThan(materializedGrowth / 4);
+    }
+
+    private long export(Consumer<String> lineAction) throws Exception {
+        return export(lineAction, lines -> { });
+    }
+
+    // returns the number of lines, sampleAction runs every SAMPLE_EVERY lines while the rest is still in flight
+    private long export(Consumer<String> lineAction, LongConsumer sampleAction) throws Exception {
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/api/employees/export"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue("text/csv;charset=UTF-8");
+        long lines = 0;
+        try (BufferedReader csv = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = csv.readLine()) != null) {
+                lineAction.accept(line);
+                if (++lines % SAMPLE_EVERY == 0) {
+                    sampleAction.accept(lines);
+                }
+            }
+        }
+        return lines;
+    }
+
+    // what is still reachable, after a full collection
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,126 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeImportResult;
+import work.sehippocampus.springboot.testing.importer.EmployeeImporter;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// small chunks, so that the files below span several of them
+@SpringBootTest(properties = "employee.import.chunk-size=3")
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeImportTests {
+
+    @Autowired
+    private EmployeeImporter employeeImporter;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        employeeService.saveEmployee(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+    }
+
+    @DisplayName("CSVのインポート(不正行・重複行は拒否)")
+    @Test
+    public void givenCsvWithBadRows_whenImportEmployees_thenValidRowsAreImportedAndOthersReported() throws IOException {
+        // given - precondition or setup
+        String csv = "\uFEFFid,email,firstName,lastName,version\n"
+                + "1,jiro.yamada@sehippocampus.work,jiro,yamada,3\n"
+                + "2,taro.yamada@sehippocampus.work,taro,yamada,0\n"
+                + "\n"
+                + "3,saburo.suzuki@sehippocampus.work,saburo,\"Suzuki, Jr.\",0\n"
+                + "4,shiro.tanaka@sehippocampus.work,,tanaka,0\n"
+                + "5,goro.sato@sehippocampus.work,goro,sato,0,unexpected\n"
+                + "6,jiro.yamada@sehippocampus.work,jiro,yamada,0\n"
+                + "7,rokuro.ito@sehippocampus.work," + "x".repeat(Employee.MAX_FIELD_LENGTH + 1) + ",ito,0\n"
+                + "8,hanako.kato@sehippocampus.work,hanako,kato,0\n";
+
+        // when - action or the behaviour that we are going test
+        EmployeeImportResult result = employeeImporter.importEmployees(stream(csv), EmployeeImporter.Format.CSV,
+                StandardCharsets.UTF_8);
+
+        // then - verify the output
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(5);
+        assertThat(result.getRejects()).extracting(EmployeeBatchItem::getIndex, EmployeeBatchItem::getStatus)
+                .containsExactly(
+                        // already in the table
+                        tuple(3, EmployeeBatchItem.Status.DUPLICATE),
+                        tuple(6, EmployeeBatchItem.Status.INVALID),
+                        tuple(7, EmployeeBatchItem.Status.INVALID),
+                        // imported by an earlier chunk
+                        tuple(8, EmployeeBatchItem.Status.DUPLICATE),
+                        tuple(9, EmployeeBatchItem.Status.INVALID));
+        assertThat(employeeRepository.findAll())
+                .extracting(Employee::getFirstName, Employee::getLastName, Employee::getVersion)
+                .containsExactlyInAnyOrder(
+                        tuple("taro", "yamada", 0L),
+                        // the id and version of the file are not taken over
+                        tuple("jiro", "yamada", 0L),
+                        tuple("saburo", "Suzuki, Jr.", 0L),
+                        tuple("hanako", "kato", 0L));
+    }
+
+    @DisplayName("NDJSONのインポート")
+    @Test
+    public void givenNdjson_whenImportEmployees_thenUnreadableLinesAreReported() throws IOException {
+        // given - precondition or setup
+        String ndjson = "{\"firstName\":\"jiro\",\"lastName\":\"yamada\",\"email\":\"jiro.yamada@sehippocampus.work\"}\n"
+                + "{\"firstName\":\"saburo\",\"lastName\":\n"
+                + "null\n"
+                + "{\"firstName\":\"shiro\",\"lastName\":\"tanaka\",\"email\":\"shiro.tanaka@sehippocampus.work\",\"department\":\"sales\"}\n";
+
+        // when - action or the behaviour that we are going test
+        EmployeeImportResult result = employeeImporter.importEmployees(stream(ndjson), EmployeeImporter.Format.NDJSON,
+                StandardCharsets.UTF_8);
+
+        // then - verify the output
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejects()).extracting(EmployeeBatchItem::getIndex).containsExactly(2, 3);
+        assertThat(result.getRejects().get(0).getMessage()).startsWith("unreadable row");
+        assertThat(employeeRepository.count()).isEqualTo(3);
+    }
+
+    @DisplayName("必須列のないCSVのインポート")
+    @Test
+    public void givenCsvWithoutEmailColumn_whenImportEmployees_thenThrowsAndImportsNothing() {
+        // given - precondition or setup
+        String csv = "firstName,lastName\njiro,yamada\n";
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(IllegalArgumentException.class,
+                () -> employeeImporter.importEmployees(stream(csv), EmployeeImporter.Format.CSV, StandardCharsets.UTF_8));
+
+        // then - verify the output
+        assertThat(employeeRepository.count()).isEqualTo(1);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import work.sehippocampus.springboot.testing.metrics.QueryCountInterceptor;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAll();
+        employee = employeeRepository.save(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+    }
+
+    @DisplayName("リクエストごとのSQL発行数の記録")
+    @Test
+    public void givenEmployees_whenGetEmployees_thenQueryCountIsRecordedPerEndpoint() throws Exception {
+        // given - precondition or setup
+        DistributionSummary before = meterRegistry.find(QueryCountInterceptor.METRIC_NAME)
+                .tags("method", "GET", "uri", "/api/employees")
+                .summary();
+        long count = before == null ? 0 : before.count();
+        double total = before == null ? 0 : before.totalAmount();
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(get("/api/employees"))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        // then - verify the output
+        DistributionSummary queries = meterRegistry.get(QueryCountInterceptor.METRIC_NAME)
+                .tags("method", "GET", "uri", "/api/employees")
+                .summary();
+        assertThat(queries.count()).isEqualTo(count + 1);
+        assertThat(queries.totalAmount() - total).isEqualTo(1);
+    }
+
+    @DisplayName("JdbcTemplateのSQLも含めたSQL発行数の記録")
+    @Test
+    public void givenEmployee_whenDeleteEmployee_thenOutboxInsertIsCountedToo() throws Exception {
+        // given - precondition or setup
+        DistributionSummary before = meterRegistry.find(QueryCountInterceptor.METRIC_NAME)
+                .tags("method", "DELETE", "uri", "/api/employees/{id}")
+                .summary();
+        double total = before == null ? 0 : before.totalAmount();
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(delete("/api/employees/{id}", employee.getId()))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        // then - verify the output
+        DistributionSummary queries = meterRegistry.get(QueryCountInterceptor.METRIC_NAME)
+                .tags("method", "DELETE", "uri", "/api/employees/{id}")
+                .summary();
+        // the delete by hibernate and the insert into the change outbox by JdbcTemplate
+        assertThat(queries.totalAmount() - total).isEqualTo(2);
+    }
+
+    @DisplayName("非同期リクエストのSQL発行数は記録しない")
+    @Test
+    public void givenStreamingExport_whenRequestCompletes_thenNoQueryCountIsRecorded() throws Exception {
+        // given - precondition or setup
+        MvcResult started = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+
+        // then - verify the output
+        // the statements ran on another thread, a count of the dispatches would be 0
+        assertThat(meterRegistry.find(QueryCountInterceptor.METRIC_NAME)
+                .tags("method", "GET", "uri", "/api/employees/export")
+                .summary()).isNull();
+    }
+
+    @DisplayName("Prometheusエンドポイントでのメトリクス出力")
+    @Test
+    public void givenServiceCall_whenScrapePrometheus_thenTimersPoolAndHibernateMetricsAreExported() throws Exception {
+        // given - precondition or setup
+        mockMvc.perform(get("/api/employees/{id}", employee.getId()))
+                .andExpect(status().isOk());
+
+        // when - action or the behaviour that we are going test
+        mockMvc.perform(get("/actuator/prometheus"))
+
+        // then - verify the output
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("employee_service_seconds_bucket")))
+                .andExpect(content().string(containsString("method=\"getEmployeeById\"")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_queries_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_flushes_total")))
+                .andExpect(content().string(containsString("hibernate_entities_loads_total")));
+    }
+}
@@ -0,0 +1,108 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeBatchLoader;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeMultiGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeBatchLoader employeeBatchLoader;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private List<Employee> employees;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        employees = employeeRepository.saveAll(IntStream.range(0, 5)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("taro" + i)
+                        .lastName("yamada")
+                        .email("taro" + i + ".yamada@sehippocampus.work")
+                        .build())
+                .collect(Collectors.toList()));
+        statistics.clear();
+    }
+
+    @DisplayName("複数ID検索は1回のクエリで要求順に返す")
+    @Test
+    public void givenIds_whenGetEmployeesByIds_thenOneQueryInRequestedOrder() throws Exception {
+        // given - precondition or setup
+        long missing = employees.get(4).getId() + 100;
+        String ids = List.of(employees.get(3).getId(), missing, employees.get(0).getId(), employees.get(3).getId())
+                .stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        // when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("ids", ids));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(2)))
+                .andExpect(jsonPath("$.items[0].firstName", is("taro3")))
+                .andExpect(jsonPath("$.items[1].firstName", is("taro0")))
+                .andExpect(jsonPath("$.missing.size()", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is((int) missing)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @DisplayName("同時の従業員ID検索はまとめて読み込む")
+    @Test
+    public void givenConcurrentLoads_whenBatchLoaderRuns_thenFewerQueriesThanLoads() {
+        // given - precondition or setup
+        List<Long> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+
+        // when - action or the behaviour that we are going test
+        List<CompletableFuture<Optional<EmployeeDto>>> loads = ids.stream()
+                .map(employeeBatchLoader::load)
+                .collect(Collectors.toList());
+        List<Long> loaded = loads.stream()
+                .map(load -> load.join().orElseThrow().getId())
+                .collect(Collectors.toList());
+
+        // then - verify the output
+        assertThat(loaded).containsExactlyElementsOf(ids);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(ids.size());
+    }
+}
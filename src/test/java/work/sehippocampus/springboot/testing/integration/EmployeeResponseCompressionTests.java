@@ -0,0 +1,88 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// compression is done by tomcat, so it needs a real server (MockMvc does not compress)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeResponseCompressionTests {
+
+    private static final int ROWS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        employeeRepository.saveAll(IntStream.range(0, ROWS)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("taro" + i)
+                        .lastName("yamada")
+                        .email("taro" + i + ".yamada@sehippocampus.work")
+                        .build())
+                .collect(Collectors.toList()));
+        employee = employeeRepository.findAll().get(0);
+    }
+
+    @DisplayName("大きな一覧はgzip圧縮される")
+    @Test
+    public void givenManyEmployees_whenGetAllEmployeesAcceptingGzip_thenResponseIsCompressed() throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        HttpResponse<byte[]> json = get("/api/employees", "application/json");
+        HttpResponse<byte[]> smile = get("/api/employees", "application/x-jackson-smile");
+
+        // then - verify the output
+        assertThat(json.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue("application/x-jackson-smile");
+    }
+
+    @DisplayName("小さなレスポンスは圧縮されない")
+    @Test
+    public void givenOneEmployee_whenGetEmployeeByIdAcceptingGzip_thenResponseIsNotCompressed() throws Exception {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        HttpResponse<byte[]> response = get("/api/employees/" + employee.getId(), "application/json");
+
+        // then - verify the output
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
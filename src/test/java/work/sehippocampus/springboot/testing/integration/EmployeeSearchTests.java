@@ -0,0 +1,124 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchIndex;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeSearchTests {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        // a bulk delete, the index has to be emptied separately
+        employeeRepository.deleteAllInBatch();
+        Search.mapping(entityManagerFactory).scope(Employee.class).workspace().purge();
+
+        employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+        employeeService.saveEmployee(Employee.builder()
+                .firstName("takashi")
+                .lastName("suzuki")
+                .email("takashi.suzuki@example.com")
+                .build());
+    }
+
+    @DisplayName("名前・Emailの前方一致でのサジェスト")
+    @Test
+    public void givenSavedEmployees_whenSuggestEmployees_thenEveryWordIsAPrefix() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> byFirstName = employeeService.suggestEmployees("ta", 10);
+        List<EmployeeDto> byNameAndLastName = employeeService.suggestEmployees("Ta yam", 10);
+        List<EmployeeDto> byEmailDomain = employeeService.suggestEmployees("sehippo", 10);
+        List<EmployeeDto> tooShort = employeeService.suggestEmployees("t", 10);
+
+        // then - verify the output
+        assertThat(byFirstName).extracting(EmployeeDto::getFirstName).containsExactlyInAnyOrder("taro", "takashi");
+        assertThat(byNameAndLastName).singleElement().satisfies(e -> {
+            assertThat(e.getId()).isEqualTo(employee.getId());
+            assertThat(e.getEmail()).isEqualTo(employee.getEmail());
+            assertThat(e.getVersion()).isEqualTo(employee.getVersion());
+        });
+        assertThat(byEmailDomain).extracting(EmployeeDto::getId).containsExactly(employee.getId());
+        assertThat(tooShort).isEmpty();
+    }
+
+    @DisplayName("部分更新・削除後のサジェスト")
+    @Test
+    public void givenPatchedAndDeletedEmployees_whenSuggestEmployees_thenIndexFollowsBulkStatements() {
+        // given - precondition or setup
+        employeeService.patchEmployee(employee.getId(), Employee.builder().firstName("jiro").build());
+        long deletedId = employeeService.suggestEmployees("takashi", 10).get(0).getId();
+        employeeService.deleteEmployee(deletedId);
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> byNewName = employeeService.suggestEmployees("jir", 10);
+        // still matches through the email, which was not changed
+        List<EmployeeDto> byEmail = employeeService.suggestEmployees("taro", 10);
+        List<EmployeeDto> byDeletedName = employeeService.suggestEmployees("takashi", 10);
+
+        // then - verify the output
+        assertThat(byNewName).extracting(EmployeeDto::getId).containsExactly(employee.getId());
+        assertThat(byEmail).extracting(EmployeeDto::getFirstName).containsExactly("jiro");
+        assertThat(byDeletedName).isEmpty();
+    }
+
+    @DisplayName("SQLで直接追加した従業員の再インデックス")
+    @Test
+    public void givenRowsWrittenAroundHibernate_whenReindexAll_thenTheyAreSuggested() throws Exception {
+        // given - precondition or setup
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "insert into employees (id, first_name, last_name, email) values (?, ?, ?, ?)",
+                1_000_000L, "saburo", "tanaka", "saburo.tanaka@sehippocampus.work"));
+        assertThat(employeeService.suggestEmployees("saburo", 10)).isEmpty();
+
+        // when - action or the behaviour that we are going test
+        employeeSearchIndex.reindexAll();
+
+        // then - verify the output
+        assertThat(employeeService.suggestEmployees("saburo", 10))
+                .extracting(EmployeeDto::getId).containsExactly(1_000_000L);
+        assertThat(employeeService.suggestEmployees("ta", 10)).hasSize(3);
+    }
+}
@@ -0,0 +1,170 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeSecondLevelCacheTests {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        employee = employeeRepository.save(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+        statistics.clear();
+    }
+
+    @DisplayName("Email検索の繰り返しはクエリキャッシュから返る")
+    @Test
+    public void givenCachedQuery_whenFindByEmailTwice_thenSecondCallSkipsDatabase(){
+        // given - precondition or setup
+        employeeRepository.findByEmail(employee.getEmail());
+        long statements = statistics.getPrepareStatementCount();
+
+        // when - action or the behaviour that we are going test
+        Employee cachedEmployee = employeeRepository.findByEmail(employee.getEmail()).get();
+
+        // then - verify the output
+        assertThat(cachedEmployee.getId()).isEqualTo(employee.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @DisplayName("名前検索の繰り返しはクエリキャッシュから返る")
+    @Test
+    public void givenCachedQuery_whenFindByNameTwice_thenSecondCallSkipsDatabase(){
+        // given - precondition or setup
+        employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+        employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
+        long statements = statistics.getPrepareStatementCount();
+
+        // when - action or the behaviour that we are going test
+        employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+        employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
+
+        // then - verify the output
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+    }
+
+    @DisplayName("ID検索の繰り返しは2次キャッシュから返る")
+    @Test
+    public void givenCachedEntity_whenFindByIdTwice_thenSecondCallSkipsDatabase(){
+        // given - precondition or setup
+        employeeRepository.findById(employee.getId());
+        long statements = statistics.getPrepareStatementCount();
+
+        // when - action or the behaviour that we are going test
+        employeeRepository.findById(employee.getId());
+
+        // then - verify the output
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getDomainDataRegionStatistics("employee").getHitCount()).isPositive();
+    }
+
+    @DisplayName("updateEmployeeでキャッシュが無効化される")
+    @Test
+    public void givenCachedQueries_whenUpdateEmployee_thenQueriesReturnUpdatedEmployee(){
+        // given - precondition or setup
+        String oldEmail = employee.getEmail();
+        employeeRepository.findByEmail(oldEmail);
+        employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+        employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
+        Employee updatedEmployee = Employee.builder()
+                .id(employee.getId())
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .version(employee.getVersion())
+                .build();
+
+        // when - action or the behaviour that we are going test
+        employeeService.updateEmployee(updatedEmployee);
+
+        // then - verify the output
+        assertThat(employeeRepository.findByEmail(oldEmail)).isEmpty();
+        assertThat(employeeRepository.findByEmail(updatedEmployee.getEmail())).isPresent();
+        assertThat(employeeRepository.findByJPQL("taro", "yamada")).isEmpty();
+        assertThat(employeeRepository.findByJPQL("jiro", "yamada")).extracting(Employee::getEmail)
+                .containsExactly(updatedEmployee.getEmail());
+        assertThat(employeeRepository.findByNativeSQL("taro", "yamada")).isEmpty();
+        assertThat(employeeRepository.findById(employee.getId()).get().getFirstName()).isEqualTo("jiro");
+    }
+
+    @DisplayName("patchEmployeeは1文のUPDATE(と検索インデックス用の再読込)でキャッシュも無効化される")
+    @Test
+    public void givenCachedEntity_whenPatchEmployee_thenSingleUpdateAndCacheIsEvicted(){
+        // given - precondition or setup
+        employeeRepository.findById(employee.getId());
+        long statements = statistics.getPrepareStatementCount();
+
+        // when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(employee.getId(), Employee.builder().firstName("jiro").build());
+
+        // then - verify the output
+        assertThat(patched).isTrue();
+        // the UPDATE, then the SELECT of the updated row that the search index is rebuilt from
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 2);
+        Employee patchedEmployee = employeeRepository.findById(employee.getId()).get();
+        assertThat(patchedEmployee.getFirstName()).isEqualTo("jiro");
+        assertThat(patchedEmployee.getEmail()).isEqualTo(employee.getEmail());
+        assertThat(patchedEmployee.getVersion()).isEqualTo(employee.getVersion() + 1);
+    }
+
+    @DisplayName("キャッシュリージョン統計のメトリクス出力")
+    @Test
+    public void givenHibernateStatistics_whenQueryCacheIsUsed_thenRegionMetricsAreExported(){
+        // given - precondition or setup
+        employeeRepository.findByEmail(employee.getEmail());
+        employeeRepository.findByEmail(employee.getEmail());
+
+        // when - action or the behaviour that we are going test
+        double queryCacheHits = meterRegistry.get("hibernate.cache.query.requests")
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+
+        // then - verify the output
+        assertThat(queryCacheHits).isPositive();
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", "employee")
+                .functionCounters()).isNotEmpty();
+    }
+}
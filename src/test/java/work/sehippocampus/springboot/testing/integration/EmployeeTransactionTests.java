@@ -0,0 +1,150 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the second-level cache is off so that every read materializes entities in the persistence context
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@ActiveProfiles({"h2", "nocache"})
+public class EmployeeTransactionTests {
+
+    private static final int ROWS = 2000;
+    private static final int RUNS = 10;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @DisplayName("参照系の読み取り専用トランザクション")
+    @Test
+    public void givenEmployees_whenGetAllEmployeesReadOnly_thenNoFlushAndFewerAllocations() {
+        // given - precondition or setup
+        employeeRepository.saveAll(IntStream.range(0, ROWS)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("taro" + i)
+                        .lastName("yamada")
+                        .email("taro" + i + "@sehippocampus.work")
+                        .build())
+                .collect(Collectors.toList()));
+        // the same service call joining a read-write transaction, which is how it ran without readOnly
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // when - action or the behaviour that we are going test
+        statistics.clear();
+        List<Employee> employees = employeeService.getAllEmployees();
+        long readOnlyFlushes = statistics.getFlushCount();
+        long readOnlyTransactions = statistics.getTransactionCount();
+
+        statistics.clear();
+        readWrite.execute(status -> employeeService.getAllEmployees());
+        long readWriteFlushes = statistics.getFlushCount();
+
+        long readOnlyBytes = minAllocatedBytes(() -> employeeService.getAllEmployees());
+        long readWriteBytes = minAllocatedBytes(() -> readWrite.execute(status -> employeeService.getAllEmployees()));
+
+        // then - verify the output
+        assertThat(employees).hasSize(ROWS);
+        assertThat(readOnlyTransactions).isEqualTo(1);
+        // no dirty checking at commit
+        assertThat(readOnlyFlushes).isZero();
+        assertThat(readWriteFlushes).isEqualTo(1);
+        // no loaded-state snapshots kept per entity
+        assertThat(readOnlyBytes)
+                .as("getAllEmployees(%d rows) allocated: read-only %d bytes, read-write %d bytes",
+                        ROWS, readOnlyBytes, readWriteBytes)
+                .isLessThan(readWriteBytes);
+    }
+
+    @DisplayName("従業員保存は1トランザクション")
+    @Test
+    public void givenEmployee_whenSaveEmployee_thenOneTransaction() {
+        // given - precondition or setup
+        Employee employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+
+        // when - action or the behaviour that we are going test
+        employeeService.saveEmployee(employee);
+
+        // then - verify the output
+        assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        assertThat(statistics.getSuccessfulTransactionCount()).isEqualTo(1);
+    }
+
+    @DisplayName("古いバージョンでの部分更新は1トランザクション")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenUpdateAndExistenceCheckShareOneTransaction() {
+        // given - precondition or setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build());
+        Employee changes = Employee.builder()
+                .firstName("jiro")
+                .version(employee.getVersion() + 1)
+                .build();
+        statistics.clear();
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> employeeService.patchEmployee(employee.getId(), changes));
+
+        // then - verify the output
+        assertThat(statistics.getTransactionCount()).isEqualTo(1);
+    }
+
+    private static long minAllocatedBytes(Runnable action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long min = Long.MAX_VALUE;
+        // the minimum over several runs, the first ones include warm-up
+        for (int i = 0; i < RUNS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            action.run();
+            min = Math.min(min, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        return min;
+    }
+}
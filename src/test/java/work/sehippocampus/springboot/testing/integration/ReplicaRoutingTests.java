@@ -0,0 +1,149 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.datasource.ReadWriteRoutingDataSource;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.service.EmployeeService;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the second-level cache would answer reads before they reach either database. the employees cache is on, what it
+// keeps must not come from a replica that lags behind
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@ActiveProfiles({"h2", "replica"})
+public class ReplicaRoutingTests {
+
+    // same database as employee.datasource.replicas[0].url in application-replica.properties
+    private static final DataSource REPLICA =
+            new DriverManagerDataSource("jdbc:h2:mem:replicadb;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // reads only, outside a transaction nothing written through it would be committed (auto-commit is off)
+    private JdbcTemplate primaryJdbcTemplate;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private Employee employee;
+
+    @BeforeAll
+    static void migrateReplica() {
+        // there is no replication between the two H2 databases, the replica only gets the schema
+        Flyway.configure().dataSource(REPLICA).load().migrate();
+    }
+
+    @BeforeEach
+    void setup() {
+        primaryJdbcTemplate = new JdbcTemplate(dataSource);
+        replicaJdbcTemplate = new JdbcTemplate(REPLICA);
+        employeeRepository.deleteAllInBatch();
+        replicaJdbcTemplate.update("delete from employees");
+
+        employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+    }
+
+    @DisplayName("参照系はレプリカから読む")
+    @Test
+    public void givenEmployeeOnlyOnReplica_whenGetEmployees_thenReturnReplicaRow() {
+        // given - precondition or setup
+        replicaJdbcTemplate.update("insert into employees (id, first_name, last_name, email, version) values (?, ?, ?, ?, 0)",
+                1L, "jiro", "suzuki", "jiro.suzuki@sehippocampus.work");
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> found = employeeService.getEmployees(0, 10);
+
+        // then - verify the output
+        assertThat(found).extracting(EmployeeDto::getFirstName).containsExactly("jiro");
+        assertThat(primaryJdbcTemplate.queryForObject("select count(*) from employees", Integer.class)).isZero();
+    }
+
+    @DisplayName("更新系はプライマリに書く")
+    @Test
+    public void givenEmployee_whenSaveEmployee_thenRowIsOnPrimaryOnly() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        Employee saved = employeeService.saveEmployee(employee);
+
+        // then - verify the output
+        assertThat(primaryJdbcTemplate.queryForObject("select count(*) from employees where id = ?",
+                Integer.class, saved.getId())).isOne();
+        assertThat(replicaJdbcTemplate.queryForObject("select count(*) from employees", Integer.class)).isZero();
+        // the replica has not caught up
+        assertThat(employeeService.getEmployees(0, 10)).isEmpty();
+    }
+
+    @DisplayName("レプリカが遅れていてもID検索は更新後の行をキャッシュする")
+    @Test
+    public void givenLaggingReplica_whenGetEmployeeByIdAfterUpdate_thenReadAndCacheFromPrimary() {
+        // given - precondition or setup
+        Employee saved = employeeService.saveEmployee(employee);
+        // replicated as created, the update below never reaches the replica
+        replicaJdbcTemplate.update("insert into employees (id, first_name, last_name, email, version) values (?, ?, ?, ?, ?)",
+                saved.getId(), saved.getFirstName(), saved.getLastName(), saved.getEmail(), saved.getVersion());
+        employeeService.getEmployeeById(saved.getId());
+
+        // when - action or the behaviour that we are going test
+        employeeService.patchEmployee(saved.getId(), Employee.builder().firstName("jiro").build());
+        Optional<EmployeeDto> found = employeeService.getEmployeeById(saved.getId());
+        Optional<EmployeeDto> cached = employeeService.getEmployeeById(saved.getId());
+
+        // then - verify the output
+        assertThat(found).hasValueSatisfying(e -> {
+            assertThat(e.getFirstName()).isEqualTo("jiro");
+            assertThat(e.getVersion()).isEqualTo(saved.getVersion() + 1);
+        });
+        assertThat(cached).hasValueSatisfying(e -> assertThat(e.getFirstName()).isEqualTo("jiro"));
+        assertThat(replicaJdbcTemplate.queryForObject("select first_name from employees where id = ?",
+                String.class, saved.getId())).isEqualTo("taro");
+    }
+
+    @DisplayName("書き込み後の読み取りはプライマリから読む")
+    @Test
+    public void givenWriteInReadYourWritesScope_whenGetEmployeeById_thenReadFromPrimary() {
+        // given - precondition or setup
+        readWriteRoutingDataSource.startReadYourWrites();
+        try {
+            Employee saved = employeeService.saveEmployee(employee);
+
+            // when - action or the behaviour that we are going test
+            Optional<EmployeeDto> found = employeeService.getEmployeeById(saved.getId());
+
+            // then - verify the output
+            assertThat(found).hasValueSatisfying(e -> assertThat(e.getEmail()).isEqualTo(employee.getEmail()));
+        } finally {
+            readWriteRoutingDataSource.stopReadYourWrites();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package work.sehippocampus.springboot.testing.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn -Pjava21 test
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"h2", "nocache", "vthreads"})
+@EnabledIf("virtualThreadsSupported")
+public class VirtualThreadsTests {
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    static boolean virtualThreadsSupported() {
+        try {
+            Thread.class.getMethod("isVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @DisplayName("Tomcatのリクエスト処理が仮想スレッドで動く")
+    @Test
+    public void givenVthreadsProfile_whenTomcatRunsTask_thenTaskRunsOnVirtualThread() throws Exception {
+        // given - precondition or setup
+        TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+        Executor executor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+        // when - action or the behaviour that we are going test
+        boolean virtual = CompletableFuture.supplyAsync(() -> isVirtual(Thread.currentThread()), executor).get();
+
+        // then - verify the output
+        assertThat(virtual).isTrue();
+    }
+
+    @DisplayName("仮想スレッドでの従業員保存と取得")
+    @Test
+    public void givenVthreadsProfile_whenCreateAndGetEmployee_thenReturnEmployee() {
+        // given - precondition or setup
+        Employee employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada.vthreads@sehippocampus.work")
+                .build();
+
+        // when - action or the behaviour that we are going test
+        Employee savedEmployee = restTemplate.postForObject("/api/employees", employee, Employee.class);
+        ResponseEntity<Employee> response = restTemplate.getForEntity("/api/employees/{id}", Employee.class, savedEmployee.getId());
+
+        // then - verify the output
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getEmail()).isEqualTo(employee.getEmail());
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
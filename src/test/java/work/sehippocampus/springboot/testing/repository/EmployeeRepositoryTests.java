@@ -1,23 +1,40 @@
 package work.sehippocampus.springboot.testing.repository;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
 import work.sehippocampus.springboot.testing.model.Employee;
 
+import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@ActiveProfiles("h2")
 public class EmployeeRepositoryTests {
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private Employee employee;
 
     @BeforeEach
@@ -43,14 +60,33 @@ public class EmployeeRepositoryTests {
         assertThat(savedEmployee.getId()).isGreaterThan(0);
     }
 
+    @DisplayName("従業員保存時Email重複エラー")
+    @Test
+    public void givenExistingEmail_whenSaveAndFlush_thenThrowsDataIntegrityViolation(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+        Employee duplicateEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email(employee.getEmail())
+                .build();
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
+            employeeRepository.saveAndFlush(duplicateEmployee);
+        });
+
+        // then - verify the output
+    }
+
     @DisplayName("全従業員一覧取得")
     @Test
     public void givenEmployeeList_whenFindAll_thenEmployeeList(){
         // given - precondition or setup
         Employee employee2 = Employee.builder()
-                .firstName("taro")
+                .firstName("jiro")
                 .lastName("yamada")
-                .email("taro.yamada@sehippocampus.work")
+                .email("jiro.yamada@sehippocampus.work")
                 .build();
 
         employeeRepository.save(employee);
@@ -90,6 +126,20 @@ public class EmployeeRepositoryTests {
         assertThat(employeeDB).isNotNull();
     }
 
+    @DisplayName("登録済みEmail一括検索")
+    @Test
+    public void givenEmployeeObject_whenFindExistingEmails_thenReturnOnlySavedEmails(){
+        // given - precondition or setup
+        employeeRepository.save(employee);
+
+        // when - action or the behaviour that we are going test
+        Set<String> existingEmails = employeeRepository.findExistingEmails(
+                List.of(employee.getEmail(), "jiro.yamada@sehippocampus.work"));
+
+        // then - verify the output
+        assertThat(existingEmails).containsExactly(employee.getEmail());
+    }
+
     @DisplayName("従業員更新")
     @Test
     public void givenEmployeeObject_whenUpdate_thenReturnUpdatedEmployee(){
@@ -106,6 +156,81 @@ public class EmployeeRepositoryTests {
         assertThat(updatedEmployee.getEmail()).isEqualTo("yamada.taro@sehippocampus.work");
     }
 
+    @DisplayName("従業員部分更新")
+    @Test
+    public void givenEmployeeObject_whenUpdateNonNullFields_thenOnlyGivenFieldsAreUpdated(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+        long version = employee.getVersion();
+
+        // when - action or the behaviour that we are going test
+        int updated = employeeRepository.updateNonNullFields(employee.getId(),
+                null, null, "yamada.taro@sehippocampus.work", version);
+        Employee patchedEmployee = employeeRepository.findById(employee.getId()).get();
+
+        // then - verify the output
+        assertThat(updated).isEqualTo(1);
+        assertThat(patchedEmployee.getFirstName()).isEqualTo("taro");
+        assertThat(patchedEmployee.getEmail()).isEqualTo("yamada.taro@sehippocampus.work");
+        assertThat(patchedEmployee.getVersion()).isEqualTo(version + 1);
+    }
+
+    @DisplayName("従業員部分更新(バージョン不一致)")
+    @Test
+    public void givenStaleVersion_whenUpdateNonNullFields_thenNoRowIsUpdated(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+
+        // when - action or the behaviour that we are going test
+        int updated = employeeRepository.updateNonNullFields(employee.getId(),
+                "jiro", null, null, employee.getVersion() + 1);
+
+        // then - verify the output
+        assertThat(updated).isZero();
+        assertThat(employeeRepository.findById(employee.getId()).get().getFirstName()).isEqualTo("taro");
+    }
+
+    @DisplayName("従業員部分更新(変更なし)")
+    @Test
+    public void givenNoFields_whenUpdateNonNullFields_thenNothingIsWritten(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+        long version = employee.getVersion();
+
+        // when - action or the behaviour that we are going test
+        int matched = employeeRepository.updateNonNullFields(employee.getId(), null, null, null, version);
+        int stale = employeeRepository.updateNonNullFields(employee.getId(), null, null, null, version + 1);
+
+        // then - verify the output
+        assertThat(matched).isEqualTo(1);
+        assertThat(stale).isZero();
+        assertThat(employeeRepository.findById(employee.getId()).get().getVersion()).isEqualTo(version);
+    }
+
+    @DisplayName("従業員更新(楽観ロック)")
+    @Test
+    public void givenStaleEmployee_whenSave_thenThrowsOptimisticLockingFailure(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+        Employee staleEmployee = Employee.builder()
+                .id(employee.getId())
+                .firstName("jiro")
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
+        employee.setFirstName("saburo");
+        employeeRepository.saveAndFlush(employee);
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> {
+            employeeRepository.saveAndFlush(staleEmployee);
+        });
+
+        // then - verify the output
+        assertThat(employeeRepository.findById(employee.getId()).get().getFirstName()).isEqualTo("saburo");
+    }
+
     @DisplayName("従業員削除")
     @Test
     public void givenEmployeeObject_whenDelete_thenRemoveEmployee(){
@@ -120,6 +245,42 @@ public class EmployeeRepositoryTests {
         assertThat(employeeOptional).isEmpty();
     }
 
+    @DisplayName("従業員削除(SELECTなし)")
+    @Test
+    public void givenEmployeeObject_whenDeleteDirectlyById_thenReturnAffectedRows(){
+        // given - precondition or setup
+        employeeRepository.save(employee);
+
+        // when - action or the behaviour that we are going test
+        int deleted = employeeRepository.deleteDirectlyById(employee.getId());
+        int deletedAgain = employeeRepository.deleteDirectlyById(employee.getId());
+
+        // then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isZero();
+        assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+    }
+
+    @DisplayName("従業員一括削除")
+    @Test
+    public void givenEmployeeList_whenDeleteDirectlyByIdIn_thenRemoveOnlyGivenEmployees(){
+        // given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+
+        // when - action or the behaviour that we are going test
+        int deleted = employeeRepository.deleteDirectlyByIdIn(List.of(employee.getId(), employee1.getId() + 1000));
+
+        // then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(employeeRepository.findAll()).extracting(Employee::getId).containsExactly(employee1.getId());
+    }
+
     @DisplayName("JPQL検索")
     @Test
     public void givenEmployeeObject_whenFindByJPQL_thenReturnEmployeeObject(){
@@ -127,12 +288,198 @@ public class EmployeeRepositoryTests {
         employeeRepository.save(employee);
 
         // when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+        List<Employee> savedEmployees = employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
 
         // then - verify the output
-        assertThat(savedEmployee).isNotNull();
-        assertThat(savedEmployee.getFirstName()).isEqualTo(employee.getFirstName());
-        assertThat(savedEmployee.getLastName()).isEqualTo(employee.getLastName());
+        assertThat(savedEmployees).hasSize(1);
+        assertThat(savedEmployees.get(0).getFirstName()).isEqualTo(employee.getFirstName());
+        assertThat(savedEmployees.get(0).getLastName()).isEqualTo(employee.getLastName());
+    }
+
+    @DisplayName("JPQL検索(同姓同名)")
+    @Test
+    public void givenEmployeesWithSameName_whenFindByJPQL_thenReturnAllEmployees(){
+        // given - precondition or setup
+        Employee sameNameEmployee = Employee.builder()
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email("taro.yamada2@sehippocampus.work")
+                .build();
+        employeeRepository.saveAll(List.of(employee, sameNameEmployee));
+
+        // when - action or the behaviour that we are going test
+        List<Employee> savedEmployees = employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+
+        // then - verify the output
+        assertThat(savedEmployees).extracting(Employee::getEmail)
+                .containsExactlyInAnyOrder(employee.getEmail(), sameNameEmployee.getEmail());
+    }
+
+    @DisplayName("JPQL検索(DTO射影)")
+    @Test
+    public void givenEmployeeObject_whenFindDtoByJPQL_thenReturnDtoList(){
+        // given - precondition or setup
+        employeeRepository.save(employee);
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> employeeDtos = employeeRepository.findDtoByJPQL(employee.getFirstName(), employee.getLastName());
+
+        // then - verify the output
+        assertThat(employeeDtos).hasSize(1);
+        assertThat(employeeDtos.get(0).getId()).isEqualTo(employee.getId());
+        assertThat(employeeDtos.get(0).getEmail()).isEqualTo(employee.getEmail());
+    }
+
+    @DisplayName("従業員ID検索(DTO射影)")
+    @Test
+    public void givenEmployeeObject_whenFindDtoById_thenReturnDtoWithoutManagedEntity(){
+        // given - precondition or setup
+        employeeRepository.saveAndFlush(employee);
+        entityManager.clear();
+
+        // when - action or the behaviour that we are going test
+        EmployeeDto employeeDto = employeeRepository.findDtoById(employee.getId()).get();
+
+        // then - verify the output
+        assertThat(employeeDto.getEmail()).isEqualTo(employee.getEmail());
+        assertThat(employeeDto.getVersion()).isEqualTo(employee.getVersion());
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @DisplayName("キーセットページング(DTO射影)")
+    @Test
+    public void givenEmployeeList_whenFindDtoByIdGreaterThan_thenReturnNextPage(){
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        Employee employee3 = Employee.builder()
+                .firstName("saburo")
+                .lastName("yamada")
+                .email("saburo.yamada@sehippocampus.work")
+                .build();
+        employeeRepository.saveAll(List.of(employee, employee2, employee3));
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> firstPage = employeeRepository.findDtoByIdGreaterThan(0L, PageRequest.of(0, 2));
+        List<EmployeeDto> secondPage = employeeRepository.findDtoByIdGreaterThan(
+                firstPage.get(firstPage.size() - 1).getId(), PageRequest.of(0, 2));
+
+        // then - verify the output
+        assertThat(firstPage).extracting(EmployeeDto::getEmail)
+                .containsExactly(employee.getEmail(), employee2.getEmail());
+        assertThat(secondPage).extracting(EmployeeDto::getEmail)
+                .containsExactly(employee3.getEmail());
+    }
+
+    @DisplayName("全従業員ストリーム取得(DTO射影)")
+    @Test
+    public void givenEmployeeList_whenStreamAllDto_thenReturnAllEmployeesInIdOrder(){
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        employeeRepository.saveAllAndFlush(List.of(employee2, employee));
+        entityManager.clear();
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> employeeList;
+        try (Stream<EmployeeDto> employees = employeeRepository.streamAllDto()) {
+            employeeList = employees.collect(Collectors.toList());
+        }
+
+        // then - verify the output
+        assertThat(employeeList).extracting(EmployeeDto::getId)
+                .containsExactly(employee2.getId(), employee.getId());
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @DisplayName("前方一致・完全一致・Emailドメインでの検索")
+    @Test
+    public void givenEmployeeList_whenSearchDtos_thenReturnMatchesInSortOrder(){
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("takashi")
+                .lastName("yamada")
+                .email("takashi.yamada@example.com")
+                .build();
+        Employee employee3 = Employee.builder()
+                .firstName("tadashi")
+                .lastName("yamada")
+                .email("tadashi.yamada@sehippocampus.work")
+                .build();
+        Employee employee4 = Employee.builder()
+                .firstName("tanaka")
+                .lastName("suzuki")
+                .email("tanaka.suzuki@sehippocampus.work")
+                .build();
+        employeeRepository.saveAllAndFlush(List.of(employee, employee2, employee3, employee4));
+        entityManager.clear();
+
+        // when - action or the behaviour that we are going test
+        Slice<EmployeeDto> employees = employeeRepository.searchDtos(
+                Specification.where(EmployeeSpecifications.firstName("ta*"))
+                        .and(EmployeeSpecifications.lastName("yamada"))
+                        .and(EmployeeSpecifications.emailDomain("sehippocampus.work")),
+                PageRequest.of(0, 10, Sort.by("firstName")));
+
+        // then - verify the output
+        assertThat(employees.getContent()).extracting(EmployeeDto::getFirstName)
+                .containsExactly("tadashi", "taro");
+        assertThat(employees.hasNext()).isFalse();
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @DisplayName("検索のページ分割")
+    @Test
+    public void givenEmployeeList_whenSearchDtosFirstPage_thenHasNext(){
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        Employee employee3 = Employee.builder()
+                .firstName("saburo")
+                .lastName("yamada")
+                .email("saburo.yamada@sehippocampus.work")
+                .build();
+        employeeRepository.saveAllAndFlush(List.of(employee, employee2, employee3));
+
+        // when - action or the behaviour that we are going test
+        Slice<EmployeeDto> firstPage = employeeRepository.searchDtos(EmployeeSpecifications.lastName("yamada"),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "firstName")));
+        Slice<EmployeeDto> secondPage = employeeRepository.searchDtos(EmployeeSpecifications.lastName("yamada"),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "firstName")));
+
+        // then - verify the output
+        assertThat(firstPage.getContent()).extracting(EmployeeDto::getFirstName).containsExactly("taro", "saburo");
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).extracting(EmployeeDto::getFirstName).containsExactly("jiro");
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @DisplayName("前方一致検索でのワイルドカード文字のエスケープ")
+    @Test
+    public void givenWildcardInPrefix_whenSearchDtos_thenMatchLiterally(){
+        // given - precondition or setup
+        Employee employee2 = Employee.builder()
+                .firstName("t_ro")
+                .lastName("yamada")
+                .email("t_ro.yamada@sehippocampus.work")
+                .build();
+        employeeRepository.saveAllAndFlush(List.of(employee, employee2));
+
+        // when - action or the behaviour that we are going test
+        Slice<EmployeeDto> employees = employeeRepository.searchDtos(EmployeeSpecifications.firstName("t_*"),
+                PageRequest.of(0, 10, Sort.by("id")));
+
+        // then - verify the output
+        assertThat(employees.getContent()).extracting(EmployeeDto::getFirstName).containsExactly("t_ro");
     }
 
     @DisplayName("NativeSQL検索")
@@ -142,11 +489,27 @@ public class EmployeeRepositoryTests {
         employeeRepository.save(employee);
 
         // when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
+        List<Employee> savedEmployees = employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
 
         // then - verify the output
-        assertThat(savedEmployee).isNotNull();
-        assertThat(savedEmployee.getFirstName()).isEqualTo(employee.getFirstName());
-        assertThat(savedEmployee.getLastName()).isEqualTo(employee.getLastName());
+        assertThat(savedEmployees).hasSize(1);
+        assertThat(savedEmployees.get(0).getFirstName()).isEqualTo(employee.getFirstName());
+        assertThat(savedEmployees.get(0).getLastName()).isEqualTo(employee.getLastName());
+    }
+
+    @DisplayName("名前検索用・Email一意インデックス")
+    @Test
+    public void givenMigratedSchema_whenReadIndexes_thenNameIndexExists(){
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        List<?> indexNames = entityManager.createNativeQuery(
+                        "select index_name from information_schema.indexes where lower(table_name) = 'employees'")
+                .getResultList();
+
+        // then - verify the output
+        assertThat(indexNames).extracting(name -> name.toString().toLowerCase())
+                .contains("idx_employees_last_name_first_name", "idx_employees_first_name", "idx_employees_email_domain")
+                .anyMatch(name -> name.startsWith(Employee.EMAIL_UNIQUE_CONSTRAINT));
     }
 }
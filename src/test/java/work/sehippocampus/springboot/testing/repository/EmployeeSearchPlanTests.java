@@ -0,0 +1,212 @@
+package work.sehippocampus.springboot.testing.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// runs EXPLAIN on the SQL hibernate generates for each search filter and fails on a full table scan,
+// and checks that the sorts EmployeeSearchSorts accepts are the ones the chosen index delivers
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "work.sehippocampus.springboot.testing.repository.EmployeeSearchPlanTests$RecordingStatementInspector")
+@ActiveProfiles("h2")
+public class EmployeeSearchPlanTests {
+
+    private static final int ROWS = 1000;
+    private static final int PAGE_SIZE = 20;
+    private static final String LIKE_ESCAPE = "!";
+    // the index in the plan comment of the table, e.g. "/* PUBLIC.IDX_EMPLOYEES_FIRST_NAME: FIRST_NAME >= ..."
+    private static final Pattern PLAN_INDEX = Pattern.compile("/\\* PUBLIC\\.(\\w+)(?::| \\*/)");
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        employeeRepository.saveAllAndFlush(IntStream.range(0, ROWS)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("first" + i)
+                        .lastName("last" + i % 100)
+                        .email("employee" + i + "@domain" + i % 50 + ".example.com")
+                        .build())
+                .collect(Collectors.toList()));
+        entityManager.clear();
+    }
+
+    @DisplayName("名前の前方一致検索はインデックスを使う")
+    @Test
+    public void givenFirstNamePrefix_whenSearchDtos_thenPlanUsesFirstNameIndex() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        String plan = explainSearch(EmployeeSpecifications.firstName("first12*"), Sort.by("firstName", "id"),
+                "first12%", LIKE_ESCAPE);
+
+        // then - verify the output
+        assertThat(plan).doesNotContain("tableScan").containsIgnoringCase("idx_employees_first_name");
+        assertThat(isIndexOrdered(plan, Sort.by("firstName", "id"))).isTrue();
+    }
+
+    @DisplayName("姓の完全一致・名前順の検索はインデックスを使う")
+    @Test
+    public void givenLastName_whenSearchDtosSortedByFirstName_thenPlanUsesNameIndex() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        String plan = explainSearch(EmployeeSpecifications.lastName("last7"), Sort.by("firstName", "id"),
+                "last7");
+
+        // then - verify the output
+        assertThat(plan).doesNotContain("tableScan").containsIgnoringCase("idx_employees_last_name_first_name");
+        assertThat(isIndexOrdered(plan, Sort.by("firstName", "id"), "LAST_NAME")).isTrue();
+    }
+
+    @DisplayName("Emailドメインの完全一致・前方一致検索はインデックスを使う")
+    @Test
+    public void givenEmailDomain_whenSearchDtos_thenPlanUsesEmailDomainIndex() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        String exactPlan = explainSearch(EmployeeSpecifications.emailDomain("domain7.example.com"),
+                Sort.by("emailDomain", "id"), "domain7.example.com");
+        String prefixPlan = explainSearch(EmployeeSpecifications.emailDomain("domain4*"),
+                Sort.by("emailDomain", "id"), "domain4%", LIKE_ESCAPE);
+
+        // then - verify the output
+        assertThat(exactPlan).doesNotContain("tableScan").containsIgnoringCase("idx_employees_email_domain");
+        assertThat(prefixPlan).doesNotContain("tableScan").containsIgnoringCase("idx_employees_email_domain");
+        assertThat(isIndexOrdered(exactPlan, Sort.by("emailDomain", "id"), "EMAIL_DOMAIN")).isTrue();
+        assertThat(isIndexOrdered(prefixPlan, Sort.by("emailDomain", "id"))).isTrue();
+    }
+
+    @DisplayName("姓の完全一致・姓順の検索は索引順にならない")
+    @Test
+    public void givenLastName_whenSearchDtosSortedByLastName_thenPlanIsNotInIndexOrder() {
+        // given - precondition or setup
+        Sort byLastName = Sort.by("lastName", "id");
+        Sort byLastAndFirstName = Sort.by("lastName", "firstName", "id");
+
+        // when - action or the behaviour that we are going test
+        String byLastNamePlan = explainSearch(EmployeeSpecifications.lastName("last7"), byLastName, "last7");
+        String byLastAndFirstNamePlan = explainSearch(EmployeeSpecifications.lastName("last7"), byLastAndFirstName,
+                "last7");
+
+        // then - verify the output
+        // (last_name, first_name, id) holds the rows of one last name by first_name, not by id
+        assertThat(isIndexOrdered(byLastNamePlan, byLastName, "LAST_NAME")).isFalse();
+        assertThat(EmployeeSearchSorts.indexOrdered(Sort.by("lastName"), null, "last7", null)).isEmpty();
+        assertThat(isIndexOrdered(byLastAndFirstNamePlan, byLastAndFirstName, "LAST_NAME")).isTrue();
+        assertThat(EmployeeSearchSorts.indexOrdered(Sort.by("lastName", "firstName"), null, "last7", null))
+                .hasValue(byLastAndFirstName);
+    }
+
+    @DisplayName("複数項目での並べ替えは索引順にならない")
+    @Test
+    public void givenFirstNamePrefix_whenSearchDtosSortedByFirstAndLastName_thenPlanIsNotInIndexOrder() {
+        // given - precondition or setup
+        Sort sort = Sort.by("firstName", "lastName", "id");
+
+        // when - action or the behaviour that we are going test
+        String plan = explainSearch(EmployeeSpecifications.firstName("first12*"), sort, "first12%", LIKE_ESCAPE);
+
+        // then - verify the output
+        assertThat(isIndexOrdered(plan, sort)).isFalse();
+        assertThat(EmployeeSearchSorts.indexOrdered(Sort.by("firstName", "lastName"), "first12*", null, null))
+                .isEmpty();
+    }
+
+    @DisplayName("条件なしの検索はID順だけが索引順になる")
+    @Test
+    public void givenNoFilter_whenSearchDtosSorted_thenOnlyIdOrderIsIndexOrder() {
+        // given - precondition or setup
+        Sort byFirstName = Sort.by("firstName", "id");
+        Sort byId = Sort.by("id");
+
+        // when - action or the behaviour that we are going test
+        String byFirstNamePlan = explainSearch(null, byFirstName);
+        String byIdPlan = explainSearch(null, byId);
+
+        // then - verify the output
+        assertThat(byFirstNamePlan).contains("tableScan");
+        assertThat(isIndexOrdered(byFirstNamePlan, byFirstName)).isFalse();
+        assertThat(EmployeeSearchSorts.indexOrdered(Sort.by("firstName"), null, null, null)).isEmpty();
+        assertThat(isIndexOrdered(byIdPlan, byId)).isTrue();
+        assertThat(EmployeeSearchSorts.indexOrdered(byId, null, null, null)).hasValue(byId);
+    }
+
+    // the parameters of the where clause in order (a like is followed by its escape character), then the row limit
+    private String explainSearch(Specification<Employee> specification, Sort sort, Object... filterValues) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        employeeRepository.searchDtos(specification, PageRequest.of(0, PAGE_SIZE, sort));
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(1);
+
+        Object[] parameters = Stream.concat(Stream.of(filterValues), Stream.of(PAGE_SIZE + 1)).toArray();
+        return String.join("\n", jdbcTemplate.queryForList(
+                "explain " + RecordingStatementInspector.STATEMENTS.get(0), String.class, parameters));
+    }
+
+    // whether the index the plan reads holds the rows in the order of the sort. H2 only marks its primary key as
+    // "index sorted", so this follows InnoDB: a secondary index is in the order of its columns and then the primary
+    // key, and the columns compared to a value (equalColumns) do not take part in the order
+    private boolean isIndexOrdered(String plan, Sort sort, String... equalColumns) {
+        Matcher index = PLAN_INDEX.matcher(plan);
+        if (!index.find() || sort.stream().map(Sort.Order::getDirection).distinct().count() > 1) {
+            return false;
+        }
+        List<String> indexColumns = new ArrayList<>(jdbcTemplate.queryForList("select column_name"
+                + " from information_schema.indexes where index_name = ? order by ordinal_position",
+                String.class, index.group(1)));
+        if (!indexColumns.get(indexColumns.size() - 1).equals("ID")) {
+            indexColumns.add("ID");
+        }
+        List<String> equal = List.of(equalColumns);
+        int first = 0;
+        while (equal.contains(indexColumns.get(first))) {
+            first++;
+        }
+        List<String> indexOrder = indexColumns.subList(first, indexColumns.size());
+        List<String> order = sort.stream()
+                .map(sortOrder -> sortOrder.getProperty().replaceAll("([A-Z])", "_$1").toUpperCase(Locale.ROOT))
+                .filter(column -> !equal.contains(column))
+                .collect(Collectors.toList());
+        return order.size() <= indexOrder.size() && indexOrder.subList(0, order.size()).equals(order);
+    }
+
+    // hibernate instantiates it by class name, so what it sees has to be kept statically
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package work.sehippocampus.springboot.testing.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeBatchLoaderTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private EmployeeDto employeeDto;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        employeeDto = new EmployeeDto(1L, "taro", "yamada", "taro.yamada@sehippocampus.work", 0L);
+    }
+
+    @DisplayName("ウィンドウ内の従業員ID検索の一括読み込み")
+    @Test
+    public void givenLoadsWithinWindow_whenLoaderRuns_thenLoadThemWithOneQuery() throws Exception {
+        // given - precondition or setup
+        given(employeeRepository.findDtoByIdIn(Set.of(1L, 2L))).willReturn(List.of(employeeDto));
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(200), 100);
+
+        // when - action or the behaviour that we are going test
+        CompletableFuture<Optional<EmployeeDto>> first = loader.load(1L);
+        CompletableFuture<Optional<EmployeeDto>> missing = loader.load(2L);
+        CompletableFuture<Optional<EmployeeDto>> again = loader.load(1L);
+        loader.stop();
+
+        // then - verify the output
+        assertThat(first.join()).containsSame(employeeDto);
+        assertThat(again.join()).containsSame(employeeDto);
+        assertThat(missing.join()).isEmpty();
+        verify(employeeRepository, times(1)).findDtoByIdIn(anyCollection());
+        assertThat(meterRegistry.get("employee.loader.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @DisplayName("一括読み込みの上限件数")
+    @Test
+    public void givenMoreLoadsThanMaxBatchSize_whenLoaderRuns_thenSplitIntoBatches() throws Exception {
+        // given - precondition or setup
+        given(employeeRepository.findDtoByIdIn(anyCollection()))
+                .willAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(id -> new EmployeeDto(id, "taro", "yamada", "taro" + id + ".yamada@sehippocampus.work", 0L))
+                        .collect(Collectors.toList()));
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofSeconds(10), 2);
+
+        // when - action or the behaviour that we are going test
+        List<Optional<EmployeeDto>> employees = List.of(1L, 2L, 3L, 4L).stream()
+                .map(loader::load)
+                .collect(Collectors.toList()).stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        loader.stop();
+
+        // then - verify the output
+        assertThat(employees).extracting(employee -> employee.orElseThrow().getId()).containsExactly(1L, 2L, 3L, 4L);
+        verify(employeeRepository, times(2)).findDtoByIdIn(anyCollection());
+    }
+
+    @DisplayName("一括読み込みの失敗")
+    @Test
+    public void givenQueryFails_whenLoad_thenEveryLoadOfTheBatchFails() {
+        // given - precondition or setup
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection refused");
+        given(employeeRepository.findDtoByIdIn(anyCollection())).willThrow(failure);
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(2), 100);
+        EmployeeBatchLoader.Load first = new EmployeeBatchLoader.Load(1L, new CompletableFuture<>());
+        EmployeeBatchLoader.Load second = new EmployeeBatchLoader.Load(2L, new CompletableFuture<>());
+
+        // when - action or the behaviour that we are going test
+        loader.load(List.of(first, second));
+
+        // then - verify the output
+        assertThat(first.getResult()).isCompletedExceptionally();
+        assertThat(second.getResult()).failsWithin(Duration.ZERO)
+                .withThrowableOfType(Exception.class)
+                .withCause(failure);
+    }
+
+    @DisplayName("最初の従業員ID検索で読み込みスレッドを開始")
+    @Test
+    public void givenNoLoadYet_whenLoad_thenLoadOnDaemonThread() throws Exception {
+        // given - precondition or setup
+        CompletableFuture<Thread> loaderThread = new CompletableFuture<>();
+        given(employeeRepository.findDtoByIdIn(Set.of(1L))).willAnswer(invocation -> {
+            loaderThread.complete(Thread.currentThread());
+            return List.of(employeeDto);
+        });
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(2), 100);
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDto> employee = loader.getEmployeeById(1L);
+        loader.stop();
+
+        // then - verify the output
+        assertThat(employee).containsSame(employeeDto);
+        assertThat(loaderThread.join().isDaemon()).isTrue();
+        assertThat(loaderThread.join().getName()).isEqualTo("employee-batch-loader");
+    }
+
+    @DisplayName("読み込み前に停止")
+    @Test
+    public void givenLoaderNeverUsed_whenStop_thenStopWithoutThreadAndFailLoads() throws Exception {
+        // given - precondition or setup
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(2), 100);
+
+        // when - action or the behaviour that we are going test
+        loader.stop();
+        CompletableFuture<Optional<EmployeeDto>> result = loader.load(1L);
+
+        // then - verify the output
+        assertThat(result).isCompletedExceptionally();
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @DisplayName("停止後の従業員ID検索")
+    @Test
+    public void givenStoppedLoader_whenLoad_thenFail() throws Exception {
+        // given - precondition or setup
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(2), 100);
+        loader.load(1L).join();
+        loader.stop();
+
+        // when - action or the behaviour that we are going test
+        CompletableFuture<Optional<EmployeeDto>> result = loader.load(1L);
+
+        // then - verify the output
+        assertThat(result).isCompletedExceptionally();
+    }
+
+    @DisplayName("読み込みスレッドへの割り込み")
+    @Test
+    public void givenQueuedLoad_whenLoaderThreadIsInterrupted_thenFailQueuedAndLaterLoads() throws Exception {
+        // given - precondition or setup
+        EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, meterRegistry, Duration.ofMillis(2), 100);
+        CompletableFuture<CompletableFuture<Optional<EmployeeDto>>> queued = new CompletableFuture<>();
+        given(employeeRepository.findDtoByIdIn(Set.of(1L))).willAnswer(invocation -> {
+            // queued behind this batch, then the loader thread is interrupted before it takes the next one
+            queued.complete(loader.load(2L));
+            Thread.currentThread().interrupt();
+            return List.of(employeeDto);
+        });
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDto> first = loader.getEmployeeById(1L);
+
+        // then - verify the output
+        assertThat(first).containsSame(employeeDto);
+        assertThat(queued.join()).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(loader.load(3L)).isCompletedExceptionally();
+        loader.stop();
+    }
+}
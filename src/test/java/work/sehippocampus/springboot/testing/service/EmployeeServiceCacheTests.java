@@ -0,0 +1,173 @@
+package work.sehippocampus.springboot.testing.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionOperations;
+import work.sehippocampus.springboot.testing.changes.EmployeeChangeOutbox;
+import work.sehippocampus.springboot.testing.config.CachingConfig;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
+import work.sehippocampus.springboot.testing.model.Employee;
+import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchIndex;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(classes = {CachingConfig.class, CacheAutoConfiguration.class, EmployeeServiceImpl.class})
+public class EmployeeServiceCacheTests {
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @MockBean
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @MockBean
+    private EmployeeChangeOutbox employeeChangeOutbox;
+
+    @MockBean
+    private EmployeeBatchLoader employeeBatchLoader;
+
+    @MockBean
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Employee employee;
+
+    private EmployeeDto employeeDto;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCache("employees").clear();
+
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+        employeeDto = EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build();
+    }
+
+    @DisplayName("従業員ID検索(キャッシュヒット)")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeById_thenRepositoryIsCalledOnce(){
+        // given - precondition or setup
+        given(employeeBatchLoader.getEmployeeById(employee.getId())).willReturn(Optional.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        employeeService.getEmployeeById(employee.getId());
+        Optional<EmployeeDto> cachedEmployee = employeeService.getEmployeeById(employee.getId());
+
+        // then - verify the output
+        assertThat(cachedEmployee).contains(employeeDto);
+        verify(employeeBatchLoader, times(1)).getEmployeeById(employee.getId());
+        assertThat(nativeCache().stats().hitCount()).isEqualTo(1);
+        assertThat(nativeCache().stats().missCount()).isEqualTo(1);
+    }
+
+    @DisplayName("従業員ID検索(存在しないIDはキャッシュしない)")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeById_thenNotCached(){
+        // given - precondition or setup
+        given(employeeBatchLoader.getEmployeeById(employee.getId())).willReturn(Optional.empty());
+
+        // when - action or the behaviour that we are going test
+        employeeService.getEmployeeById(employee.getId());
+        employeeService.getEmployeeById(employee.getId());
+
+        // then - verify the output
+        verify(employeeBatchLoader, times(2)).getEmployeeById(employee.getId());
+    }
+
+    @DisplayName("従業員更新時キャッシュ削除")
+    @Test
+    public void givenCachedEmployee_whenUpdateEmployee_thenCacheIsEvicted(){
+        // given - precondition or setup
+        EmployeeDto updatedEmployeeDto = EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        given(employeeBatchLoader.getEmployeeById(employee.getId()))
+                .willReturn(Optional.of(employeeDto), Optional.of(updatedEmployeeDto));
+        given(employeeRepository.saveAndFlush(any(Employee.class))).willAnswer(invocation -> invocation.getArgument(0));
+        employeeService.getEmployeeById(employee.getId());
+        Employee updatedEmployee = Employee.builder()
+                .id(employee.getId())
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+
+        // when - action or the behaviour that we are going test
+        employeeService.updateEmployee(updatedEmployee);
+        Optional<EmployeeDto> cachedEmployee = employeeService.getEmployeeById(employee.getId());
+
+        // then - verify the output
+        assertThat(cachedEmployee).contains(updatedEmployeeDto);
+        verify(employeeBatchLoader, times(2)).getEmployeeById(employee.getId());
+    }
+
+    // the cache holds the read DTOs, a saved entity is not put into it
+    @DisplayName("従業員保存時はキャッシュしない")
+    @Test
+    public void givenNewEmployee_whenSaveEmployee_thenNextLookupReadsRepository(){
+        // given - precondition or setup
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
+        given(employeeBatchLoader.getEmployeeById(employee.getId())).willReturn(Optional.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        employeeService.saveEmployee(employee);
+        Optional<EmployeeDto> cachedEmployee = employeeService.getEmployeeById(employee.getId());
+
+        // then - verify the output
+        assertThat(cachedEmployee).contains(employeeDto);
+        verify(employeeBatchLoader, times(1)).getEmployeeById(employee.getId());
+    }
+
+    @DisplayName("従業員削除時キャッシュ削除")
+    @Test
+    public void givenCachedEmployee_whenDeleteEmployee_thenCacheEvicted(){
+        // given - precondition or setup
+        given(employeeBatchLoader.getEmployeeById(employee.getId())).willReturn(Optional.of(employeeDto));
+        willDoNothing().given(employeeRepository).deleteById(employee.getId());
+        employeeService.getEmployeeById(employee.getId());
+
+        // when - action or the behaviour that we are going test
+        employeeService.deleteEmployee(employee.getId());
+        employeeService.getEmployeeById(employee.getId());
+
+        // then - verify the output
+        verify(employeeBatchLoader, times(2)).getEmployeeById(employee.getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache() {
+        return (Cache<Object, Object>) cacheManager.getCache("employees").getNativeCache();
+    }
+}
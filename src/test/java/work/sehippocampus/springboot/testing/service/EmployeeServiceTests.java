@@ -1,23 +1,45 @@
 package work.sehippocampus.springboot.testing.service;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import work.sehippocampus.springboot.testing.changes.EmployeeChangeOutbox;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeChangeEvent;
+import work.sehippocampus.springboot.testing.dto.EmployeeDto;
 import work.sehippocampus.springboot.testing.exception.ResourceNotFoundException;
 import work.sehippocampus.springboot.testing.model.Employee;
 import work.sehippocampus.springboot.testing.repository.EmployeeRepository;
+import work.sehippocampus.springboot.testing.search.EmployeeSearchIndex;
 
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +47,14 @@ public class EmployeeServiceTests {
 
     @Mock
     private EmployeeRepository employeeRepository;
+    @Mock
+    private EmployeeSearchIndex employeeSearchIndex;
+    @Mock
+    private EmployeeChangeOutbox employeeChangeOutbox;
+    @Mock
+    private EmployeeBatchLoader employeeBatchLoader;
+    @Mock
+    private TransactionOperations transactionOperations;
     @InjectMocks
     private EmployeeServiceImpl employeeService;
 
@@ -47,23 +77,26 @@ public class EmployeeServiceTests {
     @Test
     public void givenEmployeeObject_whenSave_thenReturnEmployeeObject(){
         // given - precondition or setup
-        given(employeeRepository.findByEmail(employee.getEmail()))
-                .willReturn(Optional.empty());
-        given(employeeRepository.save(employee)).willReturn(employee);
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
 
         // when - action or the behaviour that we are going test
         Employee savedEmployee = employeeService.saveEmployee(employee);
 
         // then - verify the output
         assertThat(savedEmployee).isNotNull();
+        verify(employeeRepository, never()).findByEmail(any(String.class));
+        verify(employeeChangeOutbox, times(1)).recordSaved(EmployeeChangeEvent.Type.CREATED, List.of(employee));
     }
 
     @DisplayName("従業員保存時Email重複エラー")
     @Test
     public void givenExistingEmail_whenSave_thenThrowsException(){
         // given - precondition or setup
-        given(employeeRepository.findByEmail(employee.getEmail()))
-                .willReturn(Optional.of(employee));
+        // 一意制約違反を重複の判定に使う
+        given(employeeRepository.saveAndFlush(employee))
+                .willThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("Duplicate entry"), Employee.EMAIL_UNIQUE_CONSTRAINT)));
 
         // when - action or the behaviour that we are going test
         org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> {
@@ -71,7 +104,148 @@ public class EmployeeServiceTests {
         });
 
         // then - verify the output
-        verify(employeeRepository, never()).save(any(Employee.class));
+        verify(employeeRepository, never()).findByEmail(any(String.class));
+    }
+
+    @DisplayName("従業員保存時Email以外の制約違反")
+    @Test
+    public void givenOtherConstraintViolation_whenSave_thenRethrowsException(){
+        // given - precondition or setup
+        given(employeeRepository.saveAndFlush(employee))
+                .willThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("Column 'first_name' cannot be null"), null)));
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
+            employeeService.saveEmployee(employee);
+        });
+
+        // then - verify the output
+        verify(employeeRepository, times(1)).saveAndFlush(employee);
+    }
+
+    @DisplayName("従業員一括保存")
+    @Test
+    public void givenEmployeeList_whenSaveEmployees_thenReturnItemResults(){
+        // given - precondition or setup
+        Employee newEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        Employee duplicateInRequest = Employee.builder()
+                .firstName("jiro")
+                .lastName("suzuki")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        Employee invalidEmployee = Employee.builder()
+                .firstName("saburo")
+                .lastName("yamada")
+                .build();
+        given(employeeRepository.findExistingEmails(Set.of(employee.getEmail(), newEmployee.getEmail())))
+                .willReturn(Set.of(employee.getEmail()));
+        given(employeeRepository.saveAll(List.of(newEmployee)))
+                .willAnswer(invocation -> {
+                    newEmployee.setId(2L);
+                    return List.of(newEmployee);
+                });
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionOperations).executeWithoutResult(any());
+
+        // when - action or the behaviour that we are going test
+        EmployeeBatchResult result = employeeService.saveEmployees(
+                List.of(employee, newEmployee, duplicateInRequest, invalidEmployee));
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getItems()).extracting(EmployeeBatchItem::getStatus)
+                .containsExactly(EmployeeBatchItem.Status.DUPLICATE,
+                        EmployeeBatchItem.Status.CREATED,
+                        EmployeeBatchItem.Status.DUPLICATE,
+                        EmployeeBatchItem.Status.INVALID);
+        assertThat(result.getItems().get(1).getId()).isEqualTo(2L);
+        verify(employeeRepository, never()).findByEmail(any(String.class));
+    }
+
+    @DisplayName("従業員一括保存時大文字小文字違いのEmail重複")
+    @Test
+    public void givenEmailsDifferingInCase_whenSaveEmployees_thenReportDuplicates(){
+        // given - precondition or setup
+        Employee existingInOtherCase = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("Taro.Yamada@sehippocampus.work")
+                .build();
+        Employee newEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        Employee duplicateInOtherCase = Employee.builder()
+                .firstName("jiro")
+                .lastName("suzuki")
+                .email("JIRO.YAMADA@sehippocampus.work")
+                .build();
+        // the column stores the case it was created with
+        given(employeeRepository.findExistingEmails(
+                Set.of("taro.yamada@sehippocampus.work", "jiro.yamada@sehippocampus.work")))
+                .willReturn(Set.of("taro.yamada@SEHIPPOCAMPUS.work"));
+        given(employeeRepository.saveAll(List.of(newEmployee))).willReturn(List.of(newEmployee));
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionOperations).executeWithoutResult(any());
+
+        // when - action or the behaviour that we are going test
+        EmployeeBatchResult result = employeeService.saveEmployees(
+                List.of(existingInOtherCase, newEmployee, duplicateInOtherCase));
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(EmployeeBatchItem::getStatus)
+                .containsExactly(EmployeeBatchItem.Status.DUPLICATE,
+                        EmployeeBatchItem.Status.CREATED,
+                        EmployeeBatchItem.Status.DUPLICATE);
+    }
+
+    @DisplayName("従業員一括保存時の一意制約違反")
+    @Test
+    public void givenEmailTakenAfterLookup_whenSaveEmployees_thenSaveEachAloneAndReportDuplicate(){
+        // given - precondition or setup
+        Employee newEmployee = Employee.builder()
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        DataIntegrityViolationException duplicateEmail = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("Duplicate entry"), Employee.EMAIL_UNIQUE_CONSTRAINT));
+        given(employeeRepository.findExistingEmails(anyCollection())).willReturn(Set.of());
+        given(employeeRepository.saveAll(List.of(employee, newEmployee))).willThrow(duplicateEmail);
+        given(employeeRepository.saveAndFlush(employee)).willThrow(duplicateEmail);
+        given(employeeRepository.saveAndFlush(newEmployee)).willAnswer(invocation -> {
+            newEmployee.setId(2L);
+            return newEmployee;
+        });
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionOperations).executeWithoutResult(any());
+
+        // when - action or the behaviour that we are going test
+        EmployeeBatchResult result = employeeService.saveEmployees(List.of(employee, newEmployee));
+
+        // then - verify the output
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(EmployeeBatchItem::getStatus)
+                .containsExactly(EmployeeBatchItem.Status.DUPLICATE, EmployeeBatchItem.Status.CREATED);
+        assertThat(result.getItems().get(1).getId()).isEqualTo(2L);
+        verify(employeeChangeOutbox, times(1)).recordSaved(EmployeeChangeEvent.Type.CREATED, List.of(newEmployee));
     }
 
     @DisplayName("全従業員一覧取得")
@@ -114,24 +288,115 @@ public class EmployeeServiceTests {
         assertThat(employeeList.size()).isEqualTo(0);
     }
 
+    @DisplayName("従業員一覧取得(キーセットページング)")
+    @Test
+    public void givenCursor_whenGetEmployees_thenReturnNextPage(){
+        // given - precondition or setup
+        EmployeeDto employee2 = EmployeeDto.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        given(employeeRepository.findDtoByIdGreaterThan(1L, PageRequest.of(0, 10)))
+                .willReturn(List.of(employee2));
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> employeeList = employeeService.getEmployees(1L, 10);
+
+        // then - verify the output
+        assertThat(employeeList).containsExactly(employee2);
+    }
+
+    @DisplayName("従業員検索")
+    @Test
+    public void givenFilters_whenSearchEmployees_thenDelegateToRepository(){
+        // given - precondition or setup
+        EmployeeDto employee2 = EmployeeDto.builder()
+                .id(2L)
+                .firstName("jiro")
+                .lastName("yamada")
+                .email("jiro.yamada@sehippocampus.work")
+                .build();
+        PageRequest page = PageRequest.of(0, 10, Sort.by("firstName"));
+        given(employeeRepository.searchDtos(any(), eq(page)))
+                .willReturn(new SliceImpl<>(List.of(employee2), page, false));
+
+        // when - action or the behaviour that we are going test
+        Slice<EmployeeDto> employees = employeeService.searchEmployees("ji*", "yamada", null, page);
+
+        // then - verify the output
+        assertThat(employees.getContent()).containsExactly(employee2);
+        assertThat(employees.hasNext()).isFalse();
+    }
+
+    @DisplayName("従業員サジェスト")
+    @Test
+    public void givenQuery_whenSuggestEmployees_thenReturnIndexHits(){
+        // given - precondition or setup
+        EmployeeDto employeeDto = EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build();
+        given(employeeSearchIndex.suggest("ta yam", 10)).willReturn(List.of(employeeDto));
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> employees = employeeService.suggestEmployees("ta yam", 10);
+
+        // then - verify the output
+        assertThat(employees).containsExactly(employeeDto);
+        verifyNoInteractions(employeeRepository);
+    }
+
     @DisplayName("従業員ID検索")
     @Test
     public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject(){
         // given - precondition or setup
-        given(employeeRepository.findById(employee.getId())).willReturn(Optional.of(employee));
+        given(employeeBatchLoader.getEmployeeById(employee.getId())).willReturn(Optional.of(EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build()));
 
         // when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeService.getEmployeeById(employee.getId()).get();
+        EmployeeDto savedEmployee = employeeService.getEmployeeById(employee.getId()).get();
 
         // then - verify the output
         assertThat(savedEmployee).isNotNull();
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @DisplayName("トランザクション内の従業員ID検索")
+    @Test
+    public void givenActiveTransaction_whenGetEmployeeById_thenReadInTheTransaction(){
+        // given - precondition or setup
+        given(employeeRepository.findDtoById(employee.getId())).willReturn(Optional.of(EmployeeDto.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .build()));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeDto> savedEmployee;
+        try {
+            savedEmployee = employeeService.getEmployeeById(employee.getId());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // then - verify the output
+        assertThat(savedEmployee).isPresent();
+        verifyNoInteractions(employeeBatchLoader);
     }
 
     @DisplayName("従業員更新")
     @Test
     public void givenEmployeeObject_whenUpdate_thenReturnEmployeeObject(){
         // given - precondition or setup
-        given(employeeRepository.save(employee)).willReturn(employee);
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
         employee.setEmail("yamada.taro@sehippocampus.work");
 
         // when - action or the behaviour that we are going test
@@ -142,16 +407,182 @@ public class EmployeeServiceTests {
         assertThat(updatedEmployee.getEmail()).isEqualTo("yamada.taro@sehippocampus.work");
     }
 
+    @DisplayName("従業員部分更新")
+    @Test
+    public void givenChanges_whenPatchEmployee_thenReturnTrue(){
+        // given - precondition or setup
+        Employee changes = Employee.builder().email("yamada.taro@sehippocampus.work").build();
+        given(employeeRepository.updateNonNullFields(employee.getId(), null, null, changes.getEmail(), null))
+                .willReturn(1);
+        Employee patchedEmployee = Employee.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(changes.getEmail())
+                .version(1L)
+                .build();
+        given(employeeRepository.findById(employee.getId())).willReturn(Optional.of(patchedEmployee));
+
+        // when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(employee.getId(), changes);
+
+        // then - verify the output
+        assertThat(patched).isTrue();
+        verify(employeeRepository, never()).existsById(anyLong());
+        // nothing is loaded before the update, the bulk update is invisible to automatic indexing,
+        // and the change is recorded from the entity the index was rebuilt from
+        InOrder inOrder = inOrder(employeeRepository, employeeSearchIndex, employeeChangeOutbox);
+        inOrder.verify(employeeRepository).updateNonNullFields(employee.getId(), null, null, changes.getEmail(), null);
+        inOrder.verify(employeeSearchIndex).reindex(employee.getId());
+        inOrder.verify(employeeRepository).findById(employee.getId());
+        inOrder.verify(employeeChangeOutbox).recordSaved(EmployeeChangeEvent.Type.UPDATED, List.of(patchedEmployee));
+    }
+
+    @DisplayName("従業員部分更新時対象なし")
+    @Test
+    public void givenMissingEmployee_whenPatchEmployee_thenReturnFalse(){
+        // given - precondition or setup
+        Employee changes = Employee.builder().firstName("jiro").build();
+        given(employeeRepository.updateNonNullFields(employee.getId(), "jiro", null, null, null))
+                .willReturn(0);
+
+        // when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(employee.getId(), changes);
+
+        // then - verify the output
+        assertThat(patched).isFalse();
+        verify(employeeSearchIndex, never()).reindex(anyLong());
+    }
+
+    @DisplayName("従業員部分更新時変更なし")
+    @Test
+    public void givenNoChanges_whenPatchEmployee_thenNothingIsRecorded(){
+        // given - precondition or setup
+        Employee changes = Employee.builder().version(3L).build();
+        given(employeeRepository.updateNonNullFields(employee.getId(), null, null, null, 3L))
+                .willReturn(1);
+
+        // when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(employee.getId(), changes);
+
+        // then - verify the output
+        assertThat(patched).isTrue();
+        verifyNoInteractions(employeeSearchIndex, employeeChangeOutbox);
+    }
+
+    @DisplayName("従業員部分更新時バージョン不一致")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenThrowsOptimisticLockingFailure(){
+        // given - precondition or setup
+        Employee changes = Employee.builder().firstName("jiro").version(3L).build();
+        given(employeeRepository.updateNonNullFields(employee.getId(), "jiro", null, null, 3L))
+                .willReturn(0);
+        given(employeeRepository.existsById(employee.getId())).willReturn(true);
+
+        // when - action or the behaviour that we are going test
+        org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> {
+            employeeService.patchEmployee(employee.getId(), changes);
+        });
+
+        // then - verify the output
+        verify(employeeRepository, times(1)).existsById(employee.getId());
+    }
+
     @DisplayName("従業員削除")
     @Test
     public void givenEmployeeId_whenDelete_thenDeleteEmployee(){
         // given - precondition or setup
-        willDoNothing().given(employeeRepository).deleteById(employee.getId());
+        given(employeeRepository.deleteDirectlyById(employee.getId())).willReturn(1);
+
+        // when - action or the behaviour that we are going test
+        boolean deleted = employeeService.deleteEmployee(employee.getId());
+
+        // then - verify the output
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, times(1)).deleteDirectlyById(employee.getId());
+        verify(employeeRepository, never()).findById(anyLong());
+        verify(employeeSearchIndex, times(1)).purge(List.of(employee.getId()));
+        verify(employeeChangeOutbox, times(1)).recordDeleted(List.of(employee.getId()));
+    }
+
+    @DisplayName("従業員削除時対象なし")
+    @Test
+    public void givenMissingEmployeeId_whenDelete_thenReturnFalse(){
+        // given - precondition or setup
+        given(employeeRepository.deleteDirectlyById(employee.getId())).willReturn(0);
+
+        // when - action or the behaviour that we are going test
+        boolean deleted = employeeService.deleteEmployee(employee.getId());
+
+        // then - verify the output
+        assertThat(deleted).isFalse();
+    }
+
+    @DisplayName("従業員一括削除")
+    @Test
+    public void givenManyEmployeeIds_whenDeleteEmployees_thenDeleteInChunks(){
+        // given - precondition or setup
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().collect(Collectors.toList());
+        given(employeeRepository.deleteDirectlyByIdIn(anyCollection()))
+                .willAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        // when - action or the behaviour that we are going test
+        int deleted = employeeService.deleteEmployees(ids);
+
+        // then - verify the output
+        assertThat(deleted).isEqualTo(2500);
+        verify(employeeRepository, times(3)).deleteDirectlyByIdIn(anyCollection());
+        verify(employeeSearchIndex, times(3)).purge(anyCollection());
+        verify(employeeChangeOutbox, times(3)).recordDeleted(anyCollection());
+        // no select before the deletes
+        verifyNoMoreInteractions(employeeRepository);
+    }
+
+    @DisplayName("従業員一括削除(存在しないIDのみ)")
+    @Test
+    public void givenOnlyMissingIds_whenDeleteEmployees_thenRecordNoDelete(){
+        // given - precondition or setup
+        given(employeeRepository.deleteDirectlyByIdIn(List.of(1L, 2L))).willReturn(0);
+
+        // when - action or the behaviour that we are going test
+        int deleted = employeeService.deleteEmployees(List.of(1L, 2L, 1L));
+
+        // then - verify the output
+        assertThat(deleted).isZero();
+        verifyNoInteractions(employeeSearchIndex, employeeChangeOutbox);
+    }
+
+    @DisplayName("複数ID検索")
+    @Test
+    public void givenIdsWithDuplicateAndMissing_whenGetEmployeesByIds_thenReturnInRequestedOrder(){
+        // given - precondition or setup
+        EmployeeDto first = new EmployeeDto(1L, "taro", "yamada", "taro.yamada@sehippocampus.work", 0L);
+        EmployeeDto third = new EmployeeDto(3L, "saburo", "yamada", "saburo.yamada@sehippocampus.work", 0L);
+        given(employeeRepository.findDtoByIdIn(anyCollection())).willReturn(List.of(first, third));
+
+        // when - action or the behaviour that we are going test
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(List.of(3L, 2L, 1L, 3L));
+
+        // then - verify the output
+        assertThat(employees).containsExactly(third, first);
+        verify(employeeRepository).findDtoByIdIn(argThat(ids -> ids.size() == 3));
+    }
+
+    @DisplayName("大量の複数ID検索")
+    @Test
+    public void givenManyIds_whenGetEmployeesByIds_thenQueryInChunks(){
+        // given - precondition or setup
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().collect(Collectors.toList());
+        given(employeeRepository.findDtoByIdIn(anyCollection()))
+                .willAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(id -> new EmployeeDto(id, "taro", "yamada", "taro" + id + ".yamada@sehippocampus.work", 0L))
+                        .collect(Collectors.toList()));
 
         // when - action or the behaviour that we are going test
-        employeeService.deleteEmployee(employee.getId());
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(ids);
 
         // then - verify the output
-        verify(employeeRepository, times(1)).deleteById(employee.getId());
+        assertThat(employees).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids);
+        verify(employeeRepository, times(3)).findDtoByIdIn(anyCollection());
     }
 }
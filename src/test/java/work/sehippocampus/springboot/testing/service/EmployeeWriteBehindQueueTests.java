@@ -0,0 +1,189 @@
+package work.sehippocampus.springboot.testing.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchItem;
+import work.sehippocampus.springboot.testing.dto.EmployeeBatchResult;
+import work.sehippocampus.springboot.testing.dto.EmployeeIngestStatus;
+import work.sehippocampus.springboot.testing.model.Employee;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBehindQueueTests {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private MeterRegistry meterRegistry;
+
+    private EmployeeWriteBehindQueue writeBehindQueue;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehindQueue = new EmployeeWriteBehindQueue(employeeService, meterRegistry, 10, 5);
+        employee = Employee.builder()
+                .firstName("taro")
+                .lastName("yamada")
+                .email("taro.yamada@sehippocampus.work")
+                .build();
+    }
+
+    @DisplayName("キューに入れた従業員の書き込み")
+    @Test
+    public void givenQueuedEmployee_whenWriterDrains_thenStatusBecomesCreated() throws Exception {
+        // given - precondition or setup
+        given(employeeService.saveEmployees(anyList())).willReturn(EmployeeBatchResult.builder()
+                .created(1)
+                .items(List.of(EmployeeBatchItem.builder()
+                        .index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build()))
+                .build());
+        writeBehindQueue.start();
+
+        // when - action or the behaviour that we are going test
+        EmployeeIngestStatus queued = writeBehindQueue.submit(employee).orElseThrow();
+        // stop writes what is still queued before returning
+        writeBehindQueue.stop();
+
+        // then - verify the output
+        assertThat(queued.getStatus()).isEqualTo(EmployeeIngestStatus.Status.QUEUED);
+        assertThat(writeBehindQueue.getStatus(queued.getTrackingId()))
+                .hasValueSatisfying(status -> {
+                    assertThat(status.getStatus()).isEqualTo(EmployeeIngestStatus.Status.CREATED);
+                    assertThat(status.getId()).isEqualTo(1L);
+                });
+        assertThat(meterRegistry.get("employee.ingest.batch.size").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @DisplayName("一括書き込み結果の状態への反映")
+    @Test
+    public void givenBatchWithDuplicate_whenFlush_thenStatusesFollowBatchResult() {
+        // given - precondition or setup
+        EmployeeWriteBehindQueue.Pending first = new EmployeeWriteBehindQueue.Pending("tracking-1", employee);
+        EmployeeWriteBehindQueue.Pending second = new EmployeeWriteBehindQueue.Pending("tracking-2", employee);
+        given(employeeService.saveEmployees(anyList())).willReturn(EmployeeBatchResult.builder()
+                .created(1)
+                .failed(1)
+                .items(List.of(
+                        EmployeeBatchItem.builder().index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build(),
+                        EmployeeBatchItem.builder().index(1).status(EmployeeBatchItem.Status.DUPLICATE)
+                                .message("Employee already exist with given email:" + employee.getEmail()).build()))
+                .build());
+
+        // when - action or the behaviour that we are going test
+        writeBehindQueue.flush(List.of(first, second));
+
+        // then - verify the output
+        verify(employeeService, times(1)).saveEmployees(anyList());
+        assertThat(writeBehindQueue.getStatus("tracking-1"))
+                .hasValueSatisfying(status ->
+                        assertThat(status.getStatus()).isEqualTo(EmployeeIngestStatus.Status.CREATED));
+        assertThat(writeBehindQueue.getStatus("tracking-2"))
+                .hasValueSatisfying(status ->
+                        assertThat(status.getStatus()).isEqualTo(EmployeeIngestStatus.Status.DUPLICATE));
+    }
+
+    @DisplayName("一括書き込み失敗時の1件ずつの再試行")
+    @Test
+    public void givenBatchFailsOnConstraint_whenFlush_thenEmployeesAreRetriedOneByOne() {
+        // given - precondition or setup
+        EmployeeWriteBehindQueue.Pending pending = new EmployeeWriteBehindQueue.Pending("tracking-1", employee);
+        given(employeeService.saveEmployees(anyList()))
+                .willThrow(new DataIntegrityViolationException("uk_employees_email"))
+                .willReturn(EmployeeBatchResult.builder()
+                        .created(1)
+                        .items(List.of(EmployeeBatchItem.builder()
+                                .index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build()))
+                        .build());
+
+        // when - action or the behaviour that we are going test
+        writeBehindQueue.flush(List.of(pending));
+
+        // then - verify the output
+        verify(employeeService, times(2)).saveEmployees(anyList());
+        assertThat(writeBehindQueue.getStatus("tracking-1"))
+                .hasValueSatisfying(status ->
+                        assertThat(status.getStatus()).isEqualTo(EmployeeIngestStatus.Status.CREATED));
+    }
+
+    @DisplayName("停止中のキューへの投入")
+    @Test
+    public void givenStoppedQueue_whenSubmit_thenEmployeeIsRejected() {
+        // given - precondition or setup
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeIngestStatus> queued = writeBehindQueue.submit(employee);
+
+        // then - verify the output
+        assertThat(queued).isEmpty();
+        assertThat(meterRegistry.get("employee.ingest.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("停止後のキューへの投入")
+    @Test
+    public void givenStoppedWriter_whenSubmit_thenEmployeeIsRejected() throws Exception {
+        // given - precondition or setup
+        writeBehindQueue.start();
+        writeBehindQueue.stop();
+
+        // when - action or the behaviour that we are going test
+        Optional<EmployeeIngestStatus> queued = writeBehindQueue.submit(employee);
+
+        // then - verify the output
+        assertThat(queued).isEmpty();
+        assertThat(meterRegistry.get("employee.ingest.queue.depth").gauge().value()).isZero();
+    }
+
+    @DisplayName("書き込みスレッド中断時に残った従業員の失敗")
+    @Test
+    public void givenInterruptedWriter_whenStop_thenQueuedEmployeesFail() throws Exception {
+        // given - precondition or setup
+        AtomicReference<EmployeeIngestStatus> left = new AtomicReference<>();
+        CountDownLatch flushed = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            // queued behind the running flush, then the writer is interrupted before it polls again
+            left.set(writeBehindQueue.submit(employee).orElseThrow());
+            Thread.currentThread().interrupt();
+            flushed.countDown();
+            return EmployeeBatchResult.builder()
+                    .created(1)
+                    .items(List.of(EmployeeBatchItem.builder()
+                            .index(0).status(EmployeeBatchItem.Status.CREATED).id(1L).build()))
+                    .build();
+        }).given(employeeService).saveEmployees(anyList());
+        writeBehindQueue.start();
+
+        // when - action or the behaviour that we are going test
+        writeBehindQueue.submit(employee).orElseThrow();
+        assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        writeBehindQueue.stop();
+
+        // then - verify the output
+        assertThat(writeBehindQueue.getStatus(left.get().getTrackingId()))
+                .hasValueSatisfying(status ->
+                        assertThat(status.getStatus()).isEqualTo(EmployeeIngestStatus.Status.FAILED));
+        assertThat(writeBehindQueue.submit(employee)).isEmpty();
+        verify(employeeService, times(1)).saveEmployees(anyList());
+    }
+}